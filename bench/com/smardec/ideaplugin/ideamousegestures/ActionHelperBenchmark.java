@@ -0,0 +1,103 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.actionSystem.Separator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ActionHelper#findActionNode(String[])} against a synthetic main menu.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ActionHelperBenchmark {
+	private static final int LOOKUP_COUNT = 256;
+
+	/**
+	 * Number of simple actions in each submenu, there are 12 menus of 8 submenus.
+	 */
+	@Param({"5", "50"})
+	private int actionsPerGroup;
+
+	private ActionHelper actionHelper;
+	private String[][] paths;
+
+	@Setup
+	public void setUp() {
+		List<String[]> allPaths = new ArrayList<String[]>();
+		actionHelper = new ActionHelper(createMainMenu(12, 8, actionsPerGroup, allPaths));
+		Random random = new Random(42);
+		paths = new String[LOOKUP_COUNT][];
+		for (int i = 0; i < LOOKUP_COUNT; i++) {
+			paths[i] = allPaths.get(random.nextInt(allPaths.size()));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUP_COUNT)
+	public int findActionNode() {
+		int found = 0;
+		for (String[] path : paths) {
+			if (actionHelper.findActionNode(path) != null) found++;
+		}
+		return found;
+	}
+
+	static DefaultActionGroup createMainMenu(int menus, int groups, int actions, List<String[]> paths) {
+		DefaultActionGroup mainMenu = new DefaultActionGroup();
+		for (int m = 0; m < menus; m++) {
+			String menuText = "Menu " + m;
+			DefaultActionGroup menu = new DefaultActionGroup(menuText, true);
+			for (int g = 0; g < groups; g++) {
+				String groupText = "Group " + m + "." + g;
+				DefaultActionGroup group = new DefaultActionGroup(groupText, true);
+				for (int a = 0; a < actions; a++) {
+					String actionText = "Action " + m + "." + g + "." + a;
+					group.add(new SyntheticAction(actionText));
+					if (paths != null) paths.add(new String[]{menuText, groupText, actionText});
+				}
+				menu.add(group);
+				menu.add(Separator.getInstance());
+			}
+			mainMenu.add(menu);
+		}
+		return mainMenu;
+	}
+
+	private static class SyntheticAction extends AnAction {
+		private SyntheticAction(String text) {
+			super(text);
+		}
+
+		public void actionPerformed(AnActionEvent e) {
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a search of the editor's action search field on a large synthetic main menu, the cost
+ * of a keystroke. Queries match every action (capped at 100 results), a range of words, or a few actions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ActionSearchBenchmark {
+	/**
+	 * 24 menus of 16 submenus of 40 actions, 15360 actions.
+	 */
+	private static final int MENU_COUNT = 24;
+	private static final int GROUP_COUNT = 16;
+	private static final int ACTION_COUNT = 40;
+	private static final int MAX_RESULTS = 100;
+
+	@Param({"a", "group 1", "menu 23 action 39"})
+	private String query;
+
+	private ActionHelper actionHelper;
+
+	@Setup
+	public void setUp() {
+		actionHelper = new ActionHelper(ActionHelperBenchmark.createMainMenu(MENU_COUNT, GROUP_COUNT, ACTION_COUNT, null));
+	}
+
+	@Benchmark
+	public List<String[]> search() {
+		return actionHelper.searchActions(query, MAX_RESULTS);
+	}
+}
@@ -0,0 +1,68 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building the {@link ActionHelper} tree of a large synthetic main menu, converting
+ * the top level menus in turn (parallelism 1) or on a fork/join pool. The speedup is the ratio
+ * of the scores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class ActionTreeBenchmark {
+	/**
+	 * 24 menus of 16 submenus of 40 actions, more than 15000 actions.
+	 */
+	private static final int MENU_COUNT = 24;
+	private static final int GROUP_COUNT = 16;
+	private static final int ACTION_COUNT = 40;
+
+	@Param({"1", "2", "4", "8"})
+	private int parallelism;
+
+	private DefaultActionGroup mainMenu;
+	private ForkJoinPool pool;
+
+	@Setup
+	public void setUp() {
+		mainMenu = ActionHelperBenchmark.createMainMenu(MENU_COUNT, GROUP_COUNT, ACTION_COUNT, null);
+		pool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+	}
+
+	@TearDown
+	public void tearDown() {
+		if (pool != null) pool.shutdown();
+	}
+
+	@Benchmark
+	public ActionHelper build() {
+		return new ActionHelper(mainMenu, null, pool);
+	}
+}
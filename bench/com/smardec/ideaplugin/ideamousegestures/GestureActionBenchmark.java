@@ -0,0 +1,55 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.Movements;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link GestureAction#getDisplayString()}, called for every recognized movement.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GestureActionBenchmark {
+	/**
+	 * Gestures in default movements, independent of the locale running the benchmark.
+	 */
+	@Param({"LR", "LRUD1379"})
+	private String gesture;
+
+	private GestureAction gestureAction;
+
+	@Setup
+	public void setUp() {
+		long code = GestureCodes.encode(gesture, Movements.DEFAULT);
+		gestureAction = new GestureAction(code, new String[]{"Refactor", "Extract", "Method..."});
+	}
+
+	@Benchmark
+	public String getDisplayString() {
+		return gestureAction.getDisplayString();
+	}
+}
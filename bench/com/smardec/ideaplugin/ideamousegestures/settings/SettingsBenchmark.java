@@ -0,0 +1,103 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.ideaplugin.ideamousegestures.settings;
+
+import com.smardec.ideaplugin.ideamousegestures.GestureAction;
+import com.smardec.mousegestures.GestureCodes;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Settings#getAction(long)} for gesture libraries of different sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SettingsBenchmark {
+	private static final int LOOKUP_COUNT = 1024;
+
+	@Param({"10", "100", "1000", "10000"})
+	private int bindings;
+
+	private Settings settings;
+	private long[] hits;
+	private long[] misses;
+
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		GestureAction[] gestureActions = new GestureAction[bindings];
+		for (int i = 0; i < bindings; i++) {
+			gestureActions[i] = new GestureAction(createGesture(random), new String[]{"Menu", "Action " + i});
+		}
+		settings = new Settings();
+		settings.setGestureActions(gestureActions);
+		hits = new long[LOOKUP_COUNT];
+		misses = new long[LOOKUP_COUNT];
+		for (int i = 0; i < LOOKUP_COUNT; i++) {
+			hits[i] = gestureActions[random.nextInt(bindings)].getGesture();
+			long miss;
+			do {
+				miss = createGesture(random);
+			} while (settings.getAction(miss) != null);
+			misses[i] = miss;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUP_COUNT)
+	public int getActionHit() {
+		int found = 0;
+		for (long gesture : hits) {
+			if (settings.getAction(gesture) != null) found++;
+		}
+		return found;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOOKUP_COUNT)
+	public int getActionMiss() {
+		int found = 0;
+		for (long gesture : misses) {
+			if (settings.getAction(gesture) != null) found++;
+		}
+		return found;
+	}
+
+	/**
+	 * Creates a random gesture of 1 to 8 straight or diagonal moves without repeated moves.
+	 */
+	private static long createGesture(Random random) {
+		long gesture = GestureCodes.EMPTY;
+		int length = 1 + random.nextInt(8);
+		for (int i = 0; i < length; i++) {
+			int move;
+			do {
+				move = 1 + random.nextInt(8);
+			} while (move == GestureCodes.getLastMove(gesture));
+			gesture = GestureCodes.append(gesture, move);
+		}
+		return gesture;
+	}
+}
@@ -0,0 +1,104 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the sector table quantizer with the former tangent branch chain
+ * of <code>MouseGesturesRecognizer</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DirectionQuantizerBenchmark {
+	private static final float tg22dot5 = (float)0.41421357; // tg(22.5)
+	private static final float tg67dot5 = (float)2.4142137; // tg(67.5)
+	private static final int DELTA_COUNT = 1024;
+
+	@Param({"4", "8", "16"})
+	private int sectors;
+
+	private DirectionQuantizer quantizer;
+	private int[] deltaX;
+	private int[] deltaY;
+
+	@Setup
+	public void setUp() {
+		quantizer = new SectorDirectionQuantizer(sectors);
+		deltaX = new int[DELTA_COUNT];
+		deltaY = new int[DELTA_COUNT];
+		Random random = new Random(42);
+		for (int i = 0; i < DELTA_COUNT; i++) {
+			deltaX[i] = random.nextInt(201) - 100;
+			deltaY[i] = random.nextInt(201) - 100;
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DELTA_COUNT)
+	public int sectorTable() {
+		int result = 0;
+		for (int i = 0; i < DELTA_COUNT; i++) {
+			result += quantizer.getMove(deltaX[i], deltaY[i]);
+		}
+		return result;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(DELTA_COUNT)
+	public int tangentBranches() {
+		// the branch chain has no 16 sectors mode, it is measured in 8 sectors mode instead
+		boolean diagonalEnabled = sectors != 4;
+		int result = 0;
+		for (int i = 0; i < DELTA_COUNT; i++) {
+			result += getMoveWithTangents(deltaX[i], deltaY[i], diagonalEnabled);
+		}
+		return result;
+	}
+
+	private static int getMoveWithTangents(int deltaX, int deltaY, boolean diagonalEnabled) {
+		float absTangent = (float)Math.abs(deltaX) / (float)Math.abs(deltaY);
+		if (!diagonalEnabled) {
+			if (absTangent < 1) {
+				return deltaY < 0 ? Movements.UP : Movements.DOWN;
+			} else {
+				return deltaX < 0 ? Movements.LEFT : Movements.RIGHT;
+			}
+		}
+		if (absTangent < tg22dot5) {
+			return deltaY < 0 ? Movements.UP : Movements.DOWN;
+		} else if (absTangent < tg67dot5) {
+			if (deltaY < 0) {
+				return deltaX < 0 ? Movements.UP_LEFT : Movements.UP_RIGHT;
+			} else {
+				return deltaX < 0 ? Movements.DOWN_LEFT : Movements.DOWN_RIGHT;
+			}
+		} else {
+			return deltaX < 0 ? Movements.LEFT : Movements.RIGHT;
+		}
+	}
+}
@@ -0,0 +1,102 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures events per second through {@link MouseGesturesRecognizer#processMouseEvent(MouseEvent)}
+ * replaying synthetic drag traces.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MouseGesturesRecognizerBenchmark {
+	private static final int TRACE_LENGTH = 1000;
+	/**
+	 * Each tenth event of the wheel trace is a wheel rotation.
+	 */
+	private static final int WHEEL_PERIOD = 10;
+
+	@Param({"FOUR_WAY", "DIAGONAL", "WHEEL"})
+	private String mode;
+
+	private MouseGesturesRecognizer recognizer;
+	private MouseEvent[] trace;
+
+	@Setup
+	public void setUp() {
+		MouseGestures mouseGestures = new MouseGestures();
+		mouseGestures.setGridSize(30);
+		mouseGestures.setDiagonalEnabled(!"FOUR_WAY".equals(mode));
+		mouseGestures.setWheelEnabled("WHEEL".equals(mode));
+		recognizer = new MouseGesturesRecognizer(mouseGestures);
+		trace = createTrace(new JPanel(), "WHEEL".equals(mode));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TRACE_LENGTH)
+	public long processMouseEvent() {
+		for (MouseEvent mouseEvent : trace) {
+			recognizer.processMouseEvent(mouseEvent);
+		}
+		long gesture = recognizer.getGesture();
+		recognizer.clearTemporaryInfo();
+		return gesture;
+	}
+
+	/**
+	 * Creates a drag trace made of straight strokes in random directions,
+	 * a few pixels per event as produced by a high rate mouse.
+	 */
+	private static MouseEvent[] createTrace(JPanel source, boolean wheel) {
+		Random random = new Random(42);
+		MouseEvent[] trace = new MouseEvent[TRACE_LENGTH];
+		int x = 500;
+		int y = 500;
+		int stepX = 0;
+		int stepY = 0;
+		for (int i = 0; i < TRACE_LENGTH; i++) {
+			if (i % 40 == 0) {
+				stepX = random.nextInt(7) - 3;
+				stepY = random.nextInt(7) - 3;
+			}
+			x += stepX;
+			y += stepY;
+			if (wheel && i % WHEEL_PERIOD == WHEEL_PERIOD - 1) {
+				trace[i] = new MouseWheelEvent(source, MouseEvent.MOUSE_WHEEL, i, MouseEvent.BUTTON3_DOWN_MASK,
+											   x, y, x, y, 0, false, MouseWheelEvent.WHEEL_UNIT_SCROLL,
+											   1, random.nextBoolean() ? 1 : -1);
+			} else {
+				trace[i] = new MouseEvent(source, MouseEvent.MOUSE_DRAGGED, i, MouseEvent.BUTTON3_DOWN_MASK,
+										  x, y, x, y, 0, false, MouseEvent.NOBUTTON);
+			}
+		}
+		return trace;
+	}
+}
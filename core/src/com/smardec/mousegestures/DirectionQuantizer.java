@@ -0,0 +1,31 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+/**
+ * Classifies a mouse displacement into a movement.
+ */
+public interface DirectionQuantizer {
+	/**
+	 * Returns the canonical code of the movement (see {@link Movements}) corresponding
+	 * to the displacement. Screen coordinates are used, so a negative <code>deltaY</code> is up.
+	 */
+	public int getMove(int deltaX, int deltaY);
+}
@@ -0,0 +1,85 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Draws the mouse trail directly on the graphics of a frame.
+ * <br>The frame is given by a {@link TrailFrameProvider}, by default it is the frame
+ * containing the component which received the mouse events.
+ */
+public class FrameMouseTrailRenderer implements MouseTrailRenderer {
+	private MouseGestures mouseGestures;
+	private JFrame frame;
+	private int frameX;
+	private int frameY;
+	private boolean started;
+	private int lastX;
+	private int lastY;
+	private Graphics2D graphics;
+
+	public FrameMouseTrailRenderer(MouseGestures mouseGestures) {
+		this.mouseGestures = mouseGestures;
+	}
+
+	public void addPoint(Component source, int screenX, int screenY) {
+		if (graphics == null) {
+			if (frame == null) {
+				frame = getFrame(source);
+				if (frame == null) return;
+			}
+			graphics = (Graphics2D)frame.getGraphics();
+			if (graphics == null) return;
+			frame.setIgnoreRepaint(true);
+			// the frame does not move during a gesture
+			Point frameLocation = frame.getLocationOnScreen();
+			frameX = frameLocation.x;
+			frameY = frameLocation.y;
+		}
+		int x = screenX - frameX;
+		int y = screenY - frameY;
+		if (started) {
+			graphics.setColor(mouseGestures.getMouseTrailColor());
+			graphics.setStroke(mouseGestures.getMouseTrailStroke());
+			graphics.drawLine(lastX, lastY, x, y);
+		}
+		started = true;
+		lastX = x;
+		lastY = y;
+	}
+
+	public void clear() {
+		started = false;
+		if (graphics != null) {
+			frame.setIgnoreRepaint(false);
+			frame.repaint();
+			graphics = null;
+		}
+		frame = null;
+	}
+
+	private JFrame getFrame(Component source) {
+		TrailFrameProvider trailFrameProvider = mouseGestures.getTrailFrameProvider();
+		if (trailFrameProvider != null) return trailFrameProvider.getTrailFrame(source);
+		Window window = source instanceof Window ? (Window)source : SwingUtilities.getWindowAncestor(source);
+		return window instanceof JFrame ? (JFrame)window : null;
+	}
+}
@@ -0,0 +1,125 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+/**
+ * Packed representation of mouse gestures.
+ * <br>A gesture is stored in a <code>long</code>, 4 bits per movement, the first movement
+ * in the lowest bits. Each movement is one of the canonical codes defined in {@link Movements},
+ * so packed gestures do not depend on the movement characters of the current language.
+ * Unused positions are 0, so a gesture holds up to {@link #MAX_LENGTH} movements.
+ */
+public class GestureCodes {
+	/**
+	 * Gesture without movements.
+	 */
+	public static final long EMPTY = 0L;
+
+	/**
+	 * Gesture which cannot be represented, i.e. longer than {@link #MAX_LENGTH} movements
+	 * or containing unknown movements.
+	 */
+	public static final long INVALID = -1L;
+
+	/**
+	 * Maximum number of movements in a gesture.
+	 */
+	public static final int MAX_LENGTH = 16;
+
+	private static final int BITS_PER_MOVE = 4;
+	private static final long MOVE_MASK = 0xF;
+
+	private GestureCodes() {
+	}
+
+	public static int length(long gesture) {
+		if (gesture == INVALID) return 0;
+		return (Long.SIZE - Long.numberOfLeadingZeros(gesture) + BITS_PER_MOVE - 1) / BITS_PER_MOVE;
+	}
+
+	public static int getMove(long gesture, int index) {
+		return (int)((gesture >>> (index * BITS_PER_MOVE)) & MOVE_MASK);
+	}
+
+	/**
+	 * Returns the last movement of the gesture, or 0 for empty and invalid gestures.
+	 */
+	public static int getLastMove(long gesture) {
+		int length = length(gesture);
+		return length == 0 ? 0 : getMove(gesture, length - 1);
+	}
+
+	/**
+	 * Appends the movement to the gesture. Returns {@link #INVALID} if the gesture
+	 * is invalid or already holds {@link #MAX_LENGTH} movements.
+	 */
+	public static long append(long gesture, int move) {
+		int length = length(gesture);
+		if (gesture == INVALID || length == MAX_LENGTH) return INVALID;
+		return gesture | ((move & MOVE_MASK) << (length * BITS_PER_MOVE));
+	}
+
+	public static boolean isWheelMove(int move) {
+		return move == Movements.WHEEL_UP || move == Movements.WHEEL_DOWN;
+	}
+
+	/**
+	 * Converts a string representation of a gesture to its packed code.
+	 * Returns {@link #INVALID} if the string contains characters which are not movements
+	 * or is too long.
+	 */
+	public static long encode(String gesture, Movements movements) {
+		if (gesture == null) return INVALID;
+		long result = EMPTY;
+		for (int i = 0; i < gesture.length(); i++) {
+			int move = movements.getCode(gesture.charAt(i));
+			if (move == 0) return INVALID;
+			result = append(result, move);
+			if (result == INVALID) return INVALID;
+		}
+		return result;
+	}
+
+	/**
+	 * Converts a packed gesture to its string representation, an invalid gesture
+	 * is represented by an empty string.
+	 */
+	public static String decode(long gesture, Movements movements) {
+		int length = length(gesture);
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = movements.getMove(getMove(gesture, i));
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Compares packed gestures movement by movement, shorter gestures come first.
+	 */
+	public static int compare(long gesture1, long gesture2) {
+		for (int i = 0; i < MAX_LENGTH; i++) {
+			int move1 = getMove(gesture1, i);
+			int move2 = getMove(gesture2, i);
+			if (move1 != move2) return move1 < move2 ? -1 : 1;
+			if (move1 == 0) return 0;
+		}
+		return 0;
+	}
+}
@@ -0,0 +1,225 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import javax.swing.*;
+import java.awt.event.MouseEvent;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Recognizes gestures off the event dispatch thread. The AWT listener only copies
+ * the event data into a {@link MouseEventRingBuffer}, a recognizer thread consumes it
+ * and the recognized movements and gestures are delivered back to the event dispatch
+ * thread in coalesced batches: the completed gestures in order, then the latest movement.
+ * <br>The event dispatch thread never waits for the recognizer. Whether a release completes
+ * a gesture, and so has to be consumed, is decided from the distance moved and the wheel
+ * rotations since the gesture started, which is what the recognizer needs for a first movement.
+ */
+class GesturePipeline implements Runnable {
+	private static final int BUFFER_CAPACITY = 1024;
+	private static final long STOP_TIMEOUT_MILLIS = 50;
+	private static final long NO_SEQUENCE = -1;
+
+	private final MouseGestures mouseGestures;
+	private final MouseEventRingBuffer buffer;
+	private final AtomicLong pendingMovement;
+	private final ConcurrentLinkedQueue<Long> completedGestures;
+	private final AtomicLong completedCount;
+	private long deliveredCount;
+	private final AtomicBoolean deliveryScheduled;
+	private final Runnable delivery;
+	// sequence at which a release was dropped because the buffer was full
+	private final AtomicLong droppedRelease;
+	private Thread thread;
+	private volatile boolean running;
+	private volatile boolean waiting;
+	// written by the event dispatch thread only
+	private volatile long droppedEvents;
+	// gesture state seen by the event dispatch thread, reset on release
+	private boolean started;
+	private int startX;
+	private int startY;
+	private boolean moved;
+
+	GesturePipeline(MouseGestures mouseGestures) {
+		this.mouseGestures = mouseGestures;
+		buffer = new MouseEventRingBuffer(BUFFER_CAPACITY);
+		pendingMovement = new AtomicLong(GestureCodes.EMPTY);
+		completedGestures = new ConcurrentLinkedQueue<Long>();
+		completedCount = new AtomicLong();
+		deliveryScheduled = new AtomicBoolean();
+		droppedRelease = new AtomicLong(NO_SEQUENCE);
+		delivery = new Runnable() {
+			public void run() {
+				deliver();
+			}
+		};
+	}
+
+	void start() {
+		running = true;
+		thread = new Thread(this, "Mouse gestures recognizer");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	void stop() {
+		running = false;
+		LockSupport.unpark(thread);
+		try {
+			thread.join(STOP_TIMEOUT_MILLIS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	boolean isRecognizerThread() {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Returns the number of move events dropped because the recognizer fell behind.
+	 */
+	long getDroppedEvents() {
+		return droppedEvents;
+	}
+
+	/**
+	 * Hands an event over to the recognizer, called on the event dispatch thread.
+	 * @return <code>true</code> if the event completes a gesture and should be consumed
+	 */
+	boolean offer(int id, int modifiers, int x, int y, int wheelRotation) {
+		boolean release = id == MouseEvent.MOUSE_RELEASED || id == MouseEvent.MOUSE_CLICKED;
+		if (buffer.offer(id, modifiers, x, y, wheelRotation) < 0) {
+			if (release) {
+				// the recognizer completes the gesture before the events which follow
+				droppedRelease.set(buffer.getProduced());
+			} else {
+				// losing a move only costs precision
+				droppedEvents++;
+			}
+		}
+		wakeUp();
+		return trackGesture(id, x, y, wheelRotation);
+	}
+
+	/**
+	 * Follows the recognizer's conditions for a first movement, so that a release is known to
+	 * complete a gesture without waiting for the recognizer.
+	 */
+	private boolean trackGesture(int id, int x, int y, int wheelRotation) {
+		if (mouseGestures.isWheelEnabled() && id == MouseEvent.MOUSE_WHEEL && wheelRotation != 0) {
+			moved = true;
+		}
+		if (!started) {
+			started = true;
+			startX = x;
+			startY = y;
+		} else if (Math.abs(x - startX) >= mouseGestures.getGridSize() ||
+				   Math.abs(y - startY) >= mouseGestures.getGridSize()) {
+			moved = true;
+		}
+		if (id != MouseEvent.MOUSE_RELEASED && id != MouseEvent.MOUSE_CLICKED) return false;
+		boolean completed = moved;
+		started = false;
+		moved = false;
+		return completed;
+	}
+
+	private void wakeUp() {
+		if (waiting) {
+			LockSupport.unpark(thread);
+		}
+	}
+
+	public void run() {
+		while (running) {
+			long consumed = buffer.getConsumed();
+			long produced = buffer.getProduced();
+			if (consumed == produced) {
+				completeDroppedRelease(consumed);
+				waiting = true;
+				// the producer publishes before it checks waiting, so re-check before parking
+				if (running && buffer.getProduced() == consumed) {
+					LockSupport.park(this);
+				}
+				waiting = false;
+				continue;
+			}
+			for (long sequence = consumed; sequence < produced; sequence++) {
+				completeDroppedRelease(sequence);
+				mouseGestures.processEvent(buffer.getId(sequence), buffer.getModifiers(sequence), buffer.getX(sequence),
+										   buffer.getY(sequence), buffer.getWheelRotation(sequence));
+				buffer.setConsumed(sequence + 1);
+			}
+		}
+	}
+
+	/**
+	 * Completes the gesture if a release was dropped before the given sequence.
+	 */
+	private void completeDroppedRelease(long sequence) {
+		if (droppedRelease.get() == sequence && droppedRelease.compareAndSet(sequence, NO_SEQUENCE)) {
+			mouseGestures.completeGesture(MouseEvent.MOUSE_RELEASED);
+		}
+	}
+
+	/**
+	 * Publishes a movement of the current gesture, called on the recognizer thread.
+	 */
+	void publishMovement(long gesture) {
+		pendingMovement.set(gesture);
+		scheduleDelivery();
+	}
+
+	/**
+	 * Publishes a completed gesture, called on the recognizer thread.
+	 */
+	void publishGesture(long gesture) {
+		// movements of the completed gesture are superseded by the gesture itself
+		pendingMovement.set(GestureCodes.EMPTY);
+		completedGestures.add(gesture);
+		completedCount.incrementAndGet();
+		scheduleDelivery();
+	}
+
+	private void scheduleDelivery() {
+		if (deliveryScheduled.compareAndSet(false, true)) {
+			SwingUtilities.invokeLater(delivery);
+		}
+	}
+
+	private void deliver() {
+		deliveryScheduled.set(false);
+		// gestures counted before taking the movement cleared it before, so it is newer than all of them
+		long completed = completedCount.get();
+		long movement = pendingMovement.getAndSet(GestureCodes.EMPTY);
+		for (; deliveredCount < completed; deliveredCount++) {
+			mouseGestures.notifyProcessMouseGesture(completedGestures.poll());
+		}
+		if (movement != GestureCodes.EMPTY) {
+			mouseGestures.notifyGestureMovementRecognized(movement);
+		}
+	}
+}
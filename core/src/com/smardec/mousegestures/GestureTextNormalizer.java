@@ -0,0 +1,87 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+/**
+ * Normalizes typed gesture strings in a single pass: characters which are not movements are dropped,
+ * lower case movements are accepted, and a movement equal to the previous one is dropped unless it
+ * is a wheel movement, as done by {@link MouseGesturesRecognizer}.
+ */
+public class GestureTextNormalizer {
+	/**
+	 * Movement codes by character, 0 for characters which are not movements.
+	 */
+	private int[] codes;
+	private Movements movements;
+
+	public GestureTextNormalizer(Movements movements) {
+		this.movements = movements;
+		char[] moves = movements.getAllMovements();
+		int size = 0;
+		for (char move : moves) {
+			size = Math.max(size, Math.max(Character.toLowerCase(move), Character.toUpperCase(move)) + 1);
+		}
+		codes = new int[size];
+		for (char move : moves) {
+			int code = movements.getCode(move);
+			codes[Character.toLowerCase(move)] = code;
+			codes[Character.toUpperCase(move)] = code;
+		}
+		// movement characters take precedence over the case variants of other ones
+		for (char move : moves) {
+			codes[move] = movements.getCode(move);
+		}
+	}
+
+	public Movements getMovements() {
+		return movements;
+	}
+
+	/**
+	 * Returns the code of the movement represented by the character in any case, 0 if none.
+	 */
+	public int getCode(char move) {
+		return move < codes.length ? codes[move] : 0;
+	}
+
+	public String normalize(String text) {
+		return normalize(text, (char)0, (char)0);
+	}
+
+	/**
+	 * Normalizes text inserted between the given characters, <code>0</code> for none, so that
+	 * it does not repeat them either.
+	 */
+	public String normalize(String text, char previousMove, char nextMove) {
+		if (text == null) return "";
+		char[] result = new char[text.length()];
+		int length = 0;
+		int lastCode = getCode(previousMove);
+		for (int i = 0; i < text.length(); i++) {
+			int code = getCode(text.charAt(i));
+			if (code == 0) continue;
+			if (code == lastCode && !GestureCodes.isWheelMove(code)) continue;
+			result[length++] = movements.getMove(code);
+			lastCode = code;
+		}
+		if (length > 0 && lastCode == getCode(nextMove) && !GestureCodes.isWheelMove(lastCode)) length--;
+		return new String(result, 0, length);
+	}
+}
@@ -0,0 +1,119 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single producer, single consumer queue of raw mouse event data.
+ * Events are addressed by sequence numbers, the slot of a sequence is reused
+ * once the consumer has passed it.
+ */
+class MouseEventRingBuffer {
+	private final int mask;
+	private final int[] ids;
+	private final int[] modifiers;
+	private final int[] xs;
+	private final int[] ys;
+	private final int[] wheelRotations;
+	private final AtomicLong produced = new AtomicLong();
+	private final AtomicLong consumed = new AtomicLong();
+	// producer side copy of the consumed sequence, refreshed only when the buffer looks full
+	private long cachedConsumed;
+
+	/**
+	 * @param capacity the number of slots, rounded up to a power of two
+	 */
+	MouseEventRingBuffer(int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mask = size - 1;
+		ids = new int[size];
+		modifiers = new int[size];
+		xs = new int[size];
+		ys = new int[size];
+		wheelRotations = new int[size];
+	}
+
+	int getCapacity() {
+		return mask + 1;
+	}
+
+	/**
+	 * Adds an event, called by the producer only.
+	 * @return the sequence of the event or <code>-1</code> if the buffer is full
+	 */
+	long offer(int id, int modifiers, int x, int y, int wheelRotation) {
+		long sequence = produced.get();
+		if (sequence - cachedConsumed > mask) {
+			cachedConsumed = consumed.get();
+			if (sequence - cachedConsumed > mask) return -1;
+		}
+		int index = (int)sequence & mask;
+		ids[index] = id;
+		this.modifiers[index] = modifiers;
+		xs[index] = x;
+		ys[index] = y;
+		wheelRotations[index] = wheelRotation;
+		// a full barrier, the consumer may be about to park (see GesturePipeline)
+		produced.set(sequence + 1);
+		return sequence;
+	}
+
+	/**
+	 * Returns the sequence following the last published event.
+	 */
+	long getProduced() {
+		return produced.get();
+	}
+
+	/**
+	 * Returns the sequence of the first event not yet processed by the consumer.
+	 */
+	long getConsumed() {
+		return consumed.get();
+	}
+
+	/**
+	 * Releases all events before the given sequence, called by the consumer only.
+	 */
+	void setConsumed(long sequence) {
+		consumed.lazySet(sequence);
+	}
+
+	int getId(long sequence) {
+		return ids[(int)sequence & mask];
+	}
+
+	int getModifiers(long sequence) {
+		return modifiers[(int)sequence & mask];
+	}
+
+	int getX(long sequence) {
+		return xs[(int)sequence & mask];
+	}
+
+	int getY(long sequence) {
+		return ys[(int)sequence & mask];
+	}
+
+	int getWheelRotation(long sequence) {
+		return wheelRotations[(int)sequence & mask];
+	}
+}
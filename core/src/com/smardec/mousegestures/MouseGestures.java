@@ -0,0 +1,458 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import com.smardec.mousegestures.trace.GestureTraceWriter;
+
+import java.awt.*;
+import java.awt.event.AWTEventListener;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Main class for mouse gestures processing.
+ * <br>Sample usage:
+ * <code><pre>
+ *      MouseGestures mouseGestures = new MouseGestures();
+ *      mouseGestures.addMouseGesturesListener(myMouseGesturesListener);
+ *      mouseGestures.start();</pre>
+ * </code>
+ */
+public class MouseGestures {
+	// values of the deprecated InputEvent.BUTTON1_MASK to BUTTON3_MASK
+	private static final int LEGACY_BUTTON1_MASK = 1 << 4;
+	private static final int LEGACY_BUTTON2_MASK = 1 << 3;
+	private static final int LEGACY_BUTTON3_MASK = 1 << 2;
+
+	private AWTEventListener mouseGesturesEventListener;
+	private MouseGesturesRecognizer mouseGesturesRecognizer;
+	// copied on change, so that firing neither locks nor allocates an iterator
+	private volatile MouseGesturesListener[] listeners;
+	private Movements movements;
+	private int mouseButton;
+	private int gridSize;
+	private boolean diagonalEnabled;
+	private DirectionQuantizer directionQuantizer;
+	private boolean wheelEnabled;
+	private boolean mouseTrailEnabled;
+	private int mouseTrailSize;
+	private Color mouseTrailColor;
+	private BasicStroke mouseTrailStroke;
+	private MouseTrailRenderer mouseTrailRenderer;
+	private TrailFrameProvider trailFrameProvider;
+	private GestureTraceWriter traceWriter;
+	private boolean pipelineEnabled;
+	private GesturePipeline pipeline;
+	private MouseEventInterceptor mouseEventInterceptor;
+	private int interceptorModifiers;
+	// modifiers of the events which are not filtered out, see updateInterestModifiers()
+	private int interestModifiers;
+	private long filteredEvents;
+	private long processedEvents;
+
+	public MouseGestures() {
+		this(Movements.DEFAULT);
+	}
+
+	public MouseGestures(Movements movements) {
+		this.movements = movements;
+		mouseGesturesEventListener = null;
+		mouseGesturesRecognizer = new MouseGesturesRecognizer(this);
+		listeners = new MouseGesturesListener[0];
+		mouseButton = InputEvent.BUTTON3_DOWN_MASK;
+		diagonalEnabled = false;
+		directionQuantizer = null;
+		wheelEnabled = false;
+		gridSize = 50;
+		mouseTrailEnabled = false;
+		mouseTrailSize = 1;
+		mouseTrailColor = Color.BLUE;
+		mouseTrailStroke = new BasicStroke(mouseTrailSize);
+		updateInterestModifiers();
+	}
+
+	public synchronized void addMouseGesturesListener(MouseGesturesListener mouseGesturesListener) {
+		if (mouseGesturesListener == null) return;
+		MouseGesturesListener[] newListeners = Arrays.copyOf(listeners, listeners.length + 1);
+		newListeners[listeners.length] = mouseGesturesListener;
+		listeners = newListeners;
+	}
+
+	public synchronized void removeMouseGesturesListener(MouseGesturesListener mouseGesturesListener) {
+		if (mouseGesturesListener == null) return;
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i].equals(mouseGesturesListener)) {
+				MouseGesturesListener[] newListeners = new MouseGesturesListener[listeners.length - 1];
+				System.arraycopy(listeners, 0, newListeners, 0, i);
+				System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+				listeners = newListeners;
+				return;
+			}
+		}
+	}
+
+	public Movements getMovements() {
+		return movements;
+	}
+
+	public int getMouseButton() {
+		return mouseButton;
+	}
+
+	/**
+	 * Sets the button making gestures as an extended modifier, e.g. {@link InputEvent#BUTTON3_DOWN_MASK}.
+	 * The masks of the older <code>InputEvent.BUTTON1_MASK</code> to <code>BUTTON3_MASK</code>
+	 * are still accepted and converted.
+	 */
+	public void setMouseButton(int mouseButton) {
+		switch (mouseButton) {
+			case LEGACY_BUTTON1_MASK: mouseButton = InputEvent.BUTTON1_DOWN_MASK; break;
+			case LEGACY_BUTTON2_MASK: mouseButton = InputEvent.BUTTON2_DOWN_MASK; break;
+			case LEGACY_BUTTON3_MASK: mouseButton = InputEvent.BUTTON3_DOWN_MASK; break;
+		}
+		this.mouseButton = mouseButton;
+		updateInterestModifiers();
+	}
+
+	public int getGridSize() {
+		return gridSize;
+	}
+
+	public void setGridSize(int gridSize) {
+		this.gridSize = gridSize;
+	}
+
+	public boolean isDiagonalEnabled() {
+		return diagonalEnabled;
+	}
+
+	public void setDiagonalEnabled(boolean diagonalEnabled) {
+		this.diagonalEnabled = diagonalEnabled;
+	}
+
+	/**
+	 * Returns the quantizer classifying movements. Unless a quantizer is set explicitly,
+	 * 4 or 8 sectors are used depending on {@link #isDiagonalEnabled()}.
+	 */
+	public DirectionQuantizer getDirectionQuantizer() {
+		if (directionQuantizer != null) return directionQuantizer;
+		return diagonalEnabled ? SectorDirectionQuantizer.EIGHT_SECTORS : SectorDirectionQuantizer.FOUR_SECTORS;
+	}
+
+	public void setDirectionQuantizer(DirectionQuantizer directionQuantizer) {
+		this.directionQuantizer = directionQuantizer;
+	}
+
+	public boolean isWheelEnabled() {
+		return wheelEnabled;
+	}
+
+	public void setWheelEnabled(boolean wheelEnabled) {
+		this.wheelEnabled = wheelEnabled;
+	}
+
+	public boolean isMouseTrailEnabled() {
+		return mouseTrailEnabled;
+	}
+
+	public void setMouseTrailEnabled(boolean mouseTrailEnabled) {
+		this.mouseTrailEnabled = mouseTrailEnabled;
+	}
+
+	public int getMouseTrailSize() {
+		return mouseTrailSize;
+	}
+
+	public void setMouseTrailSize(int mouseTrailSize) {
+		if (mouseTrailSize != this.mouseTrailSize) {
+			mouseTrailStroke = new BasicStroke(mouseTrailSize);
+		}
+		this.mouseTrailSize = mouseTrailSize;
+	}
+
+	/**
+	 * Returns the stroke of the mouse trail, created when the trail size changes.
+	 */
+	public BasicStroke getMouseTrailStroke() {
+		return mouseTrailStroke;
+	}
+
+	public Color getMouseTrailColor() {
+		return mouseTrailColor;
+	}
+
+	public void setMouseTrailColor(Color mouseTrailColor) {
+		this.mouseTrailColor = mouseTrailColor;
+	}
+
+	/**
+	 * Returns the renderer of the mouse trail, an {@link OverlayMouseTrailRenderer} unless
+	 * another renderer is set. The default renderer is created on first use.
+	 */
+	public MouseTrailRenderer getMouseTrailRenderer() {
+		if (mouseTrailRenderer == null) {
+			mouseTrailRenderer = new OverlayMouseTrailRenderer(this);
+		}
+		return mouseTrailRenderer;
+	}
+
+	public void setMouseTrailRenderer(MouseTrailRenderer mouseTrailRenderer) {
+		this.mouseTrailRenderer = mouseTrailRenderer;
+	}
+
+	public TrailFrameProvider getTrailFrameProvider() {
+		return trailFrameProvider;
+	}
+
+	/**
+	 * Sets the provider of the frame the default renderer draws the mouse trail on.
+	 * If no provider is set, the frame containing the event source is used.
+	 */
+	public void setTrailFrameProvider(TrailFrameProvider trailFrameProvider) {
+		this.trailFrameProvider = trailFrameProvider;
+	}
+
+	public GestureTraceWriter getTraceWriter() {
+		return traceWriter;
+	}
+
+	/**
+	 * Sets the writer recording the gesture input stream, <code>null</code> stops recording.
+	 * The writer is not closed by this class.
+	 */
+	public void setTraceWriter(GestureTraceWriter traceWriter) {
+		this.traceWriter = traceWriter;
+	}
+
+	public boolean isPipelineEnabled() {
+		return pipelineEnabled;
+	}
+
+	/**
+	 * Enables recognition on a dedicated thread instead of the event dispatch thread, the AWT
+	 * listener then only hands the event data over. Listeners are still notified on the event
+	 * dispatch thread, movements possibly coalesced. Takes effect on the next {@link #start()}.
+	 */
+	public void setPipelineEnabled(boolean pipelineEnabled) {
+		this.pipelineEnabled = pipelineEnabled;
+	}
+
+	/**
+	 * Returns the number of mouse moves dropped in pipeline mode because the recognizer fell behind.
+	 */
+	public long getDroppedEvents() {
+		return pipeline != null ? pipeline.getDroppedEvents() : 0;
+	}
+
+	public MouseEventInterceptor getMouseEventInterceptor() {
+		return mouseEventInterceptor;
+	}
+
+	/**
+	 * Sets the interceptor called for mouse events with any of the given extended modifiers
+	 * (see {@link InputEvent#getModifiersEx()}), before gesture processing.
+	 * <code>null</code> removes the interceptor.
+	 */
+	public void setMouseEventInterceptor(MouseEventInterceptor mouseEventInterceptor, int modifiers) {
+		this.mouseEventInterceptor = mouseEventInterceptor;
+		interceptorModifiers = mouseEventInterceptor != null ? modifiers : 0;
+		updateInterestModifiers();
+	}
+
+	/**
+	 * Returns the number of mouse events rejected without processing, since no gesture button
+	 * or interceptor modifier was down.
+	 */
+	public long getFilteredEvents() {
+		return filteredEvents;
+	}
+
+	/**
+	 * Returns the number of mouse events passed to the interceptor or the gesture recognition.
+	 */
+	public long getProcessedEvents() {
+		return processedEvents;
+	}
+
+	private void updateInterestModifiers() {
+		interestModifiers = mouseButton | interceptorModifiers;
+	}
+
+	public void start() {
+		if (pipelineEnabled && pipeline == null) {
+			pipeline = new GesturePipeline(this);
+			pipeline.start();
+		}
+		if (mouseGesturesEventListener == null)
+			mouseGesturesEventListener = new AWTEventListener() {
+				public void eventDispatched(AWTEvent anEvent) {
+					// only mouse events are dispatched for the mask below
+					MouseEvent mouseEvent = (MouseEvent)anEvent;
+					int modifiers = getButtonModifiers(mouseEvent);
+					if ((modifiers & interestModifiers) == 0) {
+						filteredEvents++;
+						return;
+					}
+					processedEvents++;
+					if (mouseEventInterceptor != null && (modifiers & interceptorModifiers) != 0) {
+						mouseEventInterceptor.interceptMouseEvent(mouseEvent);
+					}
+					processMouseEvent(mouseEvent, modifiers);
+				}
+			};
+		Toolkit.getDefaultToolkit().addAWTEventListener(mouseGesturesEventListener, 48L);
+	}
+
+	public void stop() {
+		if (mouseGesturesEventListener != null) {
+			Toolkit.getDefaultToolkit().removeAWTEventListener(mouseGesturesEventListener);
+		}
+		if (pipeline != null) {
+			pipeline.stop();
+			pipeline = null;
+			mouseGesturesRecognizer.clearTemporaryInfo();
+		}
+	}
+
+	/**
+	 * Processes a mouse event given by its raw data, e.g. replayed from a trace.
+	 * The modifiers are extended ones, with the button of press, release and click events.
+	 * The mouse trail is not shown for such events.
+	 * @return <code>true</code> if the event completed a gesture and should be consumed
+	 */
+	public boolean processEvent(int id, int modifiers, int x, int y, int wheelRotation) {
+		if ((modifiers & mouseButton) != mouseButton) return false;
+		if (wheelEnabled && id == MouseEvent.MOUSE_WHEEL) {
+			mouseGesturesRecognizer.processWheelRotation(wheelRotation);
+		}
+		mouseGesturesRecognizer.processMovement(x, y);
+		return completeGesture(id);
+	}
+
+	/**
+	 * Returns the extended modifiers of the event together with its button. A released button
+	 * is no longer down, but its release belongs to the gesture made with it.
+	 */
+	private static int getButtonModifiers(MouseEvent mouseEvent) {
+		int modifiers = mouseEvent.getModifiersEx();
+		int button = mouseEvent.getButton();
+		if (button != MouseEvent.NOBUTTON) {
+			modifiers |= InputEvent.getMaskForButton(button);
+		}
+		return modifiers;
+	}
+
+	private void processMouseEvent(MouseEvent mouseEvent, int modifiers) {
+		if ((modifiers & mouseButton) != mouseButton) return;
+		if (traceWriter != null) {
+			recordMouseEvent(mouseEvent, modifiers);
+		}
+		if (pipeline != null) {
+			offerMouseEvent(mouseEvent, modifiers);
+			return;
+		}
+		mouseGesturesRecognizer.processMouseEvent(mouseEvent);
+		if (completeGesture(mouseEvent.getID())) {
+			// prevents displaying popup menu and so on
+			mouseEvent.consume();
+		}
+	}
+
+	private void offerMouseEvent(MouseEvent mouseEvent, int modifiers) {
+		if (!(mouseEvent.getSource() instanceof Component)) return;
+		int id = mouseEvent.getID();
+		int x = mouseEvent.getXOnScreen();
+		int y = mouseEvent.getYOnScreen();
+		int wheelRotation = mouseEvent instanceof MouseWheelEvent ? ((MouseWheelEvent)mouseEvent).getWheelRotation() : 0;
+		// the trail is painted here, on the event dispatch thread
+		boolean release = id == MouseEvent.MOUSE_RELEASED || id == MouseEvent.MOUSE_CLICKED;
+		if (release) {
+			if (mouseTrailRenderer != null) {
+				mouseTrailRenderer.clear();
+			}
+		} else if (mouseTrailEnabled) {
+			getMouseTrailRenderer().addPoint((Component)mouseEvent.getSource(), x, y);
+		}
+		if (pipeline.offer(id, modifiers, x, y, wheelRotation)) {
+			// prevents displaying popup menu and so on
+			mouseEvent.consume();
+		}
+	}
+
+	boolean completeGesture(int id) {
+		if (id != MouseEvent.MOUSE_RELEASED && id != MouseEvent.MOUSE_CLICKED) return false;
+		if (mouseGesturesRecognizer.isGestureRecognized()) {
+			long gesture = mouseGesturesRecognizer.getGesture();
+			// clear temporary information
+			mouseGesturesRecognizer.clearTemporaryInfo();
+			// execute action
+			fireProcessMouseGesture(gesture);
+			return true;
+		} else {
+			// clear temporary information
+			mouseGesturesRecognizer.clearTemporaryInfo();
+			return false;
+		}
+	}
+
+	private void recordMouseEvent(MouseEvent mouseEvent, int modifiers) {
+		int wheelRotation = mouseEvent instanceof MouseWheelEvent ? ((MouseWheelEvent)mouseEvent).getWheelRotation() : 0;
+		try {
+			traceWriter.append(mouseEvent.getID(), modifiers, mouseEvent.getXOnScreen(),
+							   mouseEvent.getYOnScreen(), mouseEvent.getWhen(), wheelRotation);
+		} catch (IOException e) {
+			e.printStackTrace();
+			traceWriter = null;
+		}
+	}
+
+	void fireGestureMovementRecognized(long gesture) {
+		GesturePipeline pipeline = this.pipeline;
+		if (pipeline != null && pipeline.isRecognizerThread()) {
+			pipeline.publishMovement(gesture);
+		} else {
+			notifyGestureMovementRecognized(gesture);
+		}
+	}
+
+	private void fireProcessMouseGesture(long aGesture) {
+		GesturePipeline pipeline = this.pipeline;
+		if (pipeline != null && pipeline.isRecognizerThread()) {
+			pipeline.publishGesture(aGesture);
+		} else {
+			notifyProcessMouseGesture(aGesture);
+		}
+	}
+
+	void notifyGestureMovementRecognized(long gesture) {
+		for (MouseGesturesListener listener : listeners) {
+			listener.gestureMovementRecognized(gesture);
+		}
+	}
+
+	void notifyProcessMouseGesture(long aGesture) {
+		for (MouseGesturesListener listener : listeners) {
+			listener.processGesture(aGesture);
+		}
+	}
+}
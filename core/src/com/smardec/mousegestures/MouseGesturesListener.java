@@ -19,7 +19,11 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.mousegestures;
 
+/**
+ * Receives recognized gestures packed as described in {@link GestureCodes}.
+ * Use {@link GestureCodes#decode(long, Movements)} to get a string representation.
+ */
 public interface MouseGesturesListener {
-	public void gestureMovementRecognized(String s);
-	public void processGesture(String s);
+	public void gestureMovementRecognized(long gesture);
+	public void processGesture(long gesture);
 }
@@ -0,0 +1,123 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+
+public class MouseGesturesRecognizer {
+	private MouseGestures mouseGestures;
+	private boolean started;
+	private int startX;
+	private int startY;
+	private long gesture;
+	private MouseTrailRenderer mouseTrailRenderer;
+
+	public MouseGesturesRecognizer(MouseGestures mouseGestures) {
+		this.mouseGestures = mouseGestures;
+		started = false;
+		gesture = GestureCodes.EMPTY;
+	}
+
+	public void clearTemporaryInfo() {
+		started = false;
+		gesture = GestureCodes.EMPTY;
+		if (mouseTrailRenderer != null) {
+			mouseTrailRenderer.clear();
+			mouseTrailRenderer = null;
+		}
+	}
+
+	/**
+	 * Returns the recognized gesture packed as described in {@link GestureCodes}.
+	 */
+	public long getGesture() {
+		return gesture;
+	}
+
+	public boolean isGestureRecognized() {
+		return gesture != GestureCodes.EMPTY;
+	}
+
+	public void processMouseEvent(MouseEvent mouseEvent) {
+		if (!(mouseEvent.getSource() instanceof Component)) return;
+		try {
+			if (mouseGestures.isWheelEnabled() && mouseEvent instanceof MouseWheelEvent) {
+				processWheelRotation(((MouseWheelEvent)mouseEvent).getWheelRotation());
+			}
+		} catch (NoClassDefFoundError e) {
+			//
+		}
+
+		// screen coordinates are computed by AWT when the event is created, no conversion needed
+		int x = mouseEvent.getXOnScreen();
+		int y = mouseEvent.getYOnScreen();
+
+		if (mouseGestures.isMouseTrailEnabled()) {
+			if (mouseTrailRenderer == null) {
+				mouseTrailRenderer = mouseGestures.getMouseTrailRenderer();
+			}
+			mouseTrailRenderer.addPoint((Component)mouseEvent.getSource(), x, y);
+		}
+		processMovement(x, y);
+	}
+
+	/**
+	 * Recognizes a wheel movement, independently of AWT events.
+	 */
+	public void processWheelRotation(int wheelRotation) {
+		if (wheelRotation < 0) {
+			saveMove(Movements.WHEEL_UP);
+		} else if (wheelRotation > 0) {
+			saveMove(Movements.WHEEL_DOWN);
+		}
+	}
+
+	/**
+	 * Recognizes a mouse movement to the given screen point, independently of AWT events.
+	 */
+	public void processMovement(int x, int y) {
+		if (!started) {
+			started = true;
+			startX = x;
+			startY = y;
+			return;
+		}
+
+		int deltaX = x - startX;
+		int deltaY = y - startY;
+		int absDeltaX = Math.abs(deltaX);
+		int absDeltaY = Math.abs(deltaY);
+		if (absDeltaX < mouseGestures.getGridSize() && absDeltaY < mouseGestures.getGridSize()) return;
+		saveMove(mouseGestures.getDirectionQuantizer().getMove(deltaX, deltaY));
+		startX = x;
+		startY = y;
+	}
+
+	private void saveMove(int move) {
+		// should not store two equal moves in succession, allows multiple wheel moves
+		if (!GestureCodes.isWheelMove(move) && GestureCodes.getLastMove(gesture) == move) return;
+		// gestures longer than GestureCodes.MAX_LENGTH are reported once as invalid
+		if (gesture == GestureCodes.INVALID) return;
+		gesture = GestureCodes.append(gesture, move);
+		mouseGestures.fireGestureMovementRecognized(gesture);
+	}
+}
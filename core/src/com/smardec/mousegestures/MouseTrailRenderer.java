@@ -0,0 +1,39 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures;
+
+import java.awt.*;
+
+/**
+ * Shows the mouse trail while a gesture is performed.
+ */
+public interface MouseTrailRenderer {
+	/**
+	 * Adds a point to the trail of the current gesture.
+	 * @param source component which received the mouse event
+	 * @param screenX x coordinate of the point on the screen
+	 * @param screenY y coordinate of the point on the screen
+	 */
+	public void addPoint(Component source, int screenX, int screenY);
+
+	/**
+	 * Removes the trail of the current gesture.
+	 */
+	public void clear();
+}
@@ -19,8 +19,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.mousegestures;
 
-import com.intellij.util.containers.HashSet;
-
+import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -30,6 +29,21 @@ import java.util.Set;
 public class Movements {
 	public static final Movements DEFAULT = new Movements();
 
+	/**
+	 * Canonical movement codes, independent of the movement characters.
+	 * Code 0 is reserved for "no movement", see {@link GestureCodes}.
+	 */
+	public static final int LEFT = 1;
+	public static final int RIGHT = 2;
+	public static final int UP = 3;
+	public static final int DOWN = 4;
+	public static final int DOWN_LEFT = 5;
+	public static final int DOWN_RIGHT = 6;
+	public static final int UP_LEFT = 7;
+	public static final int UP_RIGHT = 8;
+	public static final int WHEEL_UP = 9;
+	public static final int WHEEL_DOWN = 10;
+
 	/**
 	 * String representation of left movement.
 	 */
@@ -138,6 +152,52 @@ public class Movements {
 		return new char[]{leftMove, rightMove, upMove, downMove, upLeftMove, upRightMove, downLeftMove, downRightMove};
 	}
 
+	/**
+	 * Returns all movement characters, including wheel movements.
+	 */
+	public char[] getAllMovements() {
+		return new char[]{leftMove, rightMove, upMove, downMove, upLeftMove, upRightMove, downLeftMove, downRightMove,
+						  wheelUpMove, wheelDownMove};
+	}
+
+	/**
+	 * Returns the character representing the movement with the given canonical code,
+	 * or 0 if the code is unknown.
+	 */
+	public char getMove(int code) {
+		switch (code) {
+			case LEFT: return leftMove;
+			case RIGHT: return rightMove;
+			case UP: return upMove;
+			case DOWN: return downMove;
+			case DOWN_LEFT: return downLeftMove;
+			case DOWN_RIGHT: return downRightMove;
+			case UP_LEFT: return upLeftMove;
+			case UP_RIGHT: return upRightMove;
+			case WHEEL_UP: return wheelUpMove;
+			case WHEEL_DOWN: return wheelDownMove;
+			default: return 0;
+		}
+	}
+
+	/**
+	 * Returns the canonical code of the movement represented by the given character,
+	 * or 0 if the character is not a movement.
+	 */
+	public int getCode(char move) {
+		if (move == leftMove) return LEFT;
+		if (move == rightMove) return RIGHT;
+		if (move == upMove) return UP;
+		if (move == downMove) return DOWN;
+		if (move == downLeftMove) return DOWN_LEFT;
+		if (move == downRightMove) return DOWN_RIGHT;
+		if (move == upLeftMove) return UP_LEFT;
+		if (move == upRightMove) return UP_RIGHT;
+		if (move == wheelUpMove) return WHEEL_UP;
+		if (move == wheelDownMove) return WHEEL_DOWN;
+		return 0;
+	}
+
 	private void setDefaults() {
 		leftMove = 'L';
 		rightMove = 'R';
@@ -0,0 +1,229 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.geom.Path2D;
+import java.util.Arrays;
+
+/**
+ * Paints the mouse trail on a transparent overlay in the drag layer of the frame's layered pane.
+ * Only the regions of new segments are repainted while the gesture is performed, and only the
+ * bounding box of the trail when it is cleared. By default the new points are painted once per
+ * display frame, however fast the mouse reports them.
+ * <br>The frame is given by a {@link TrailFrameProvider}, by default it is the frame
+ * containing the component which received the mouse events.
+ */
+public class OverlayMouseTrailRenderer implements MouseTrailRenderer {
+	private static final String OVERLAY_PROPERTY = "MouseGestures.trailOverlay";
+	/**
+	 * Delay between two flushes of the trail in frame paced mode, about one display frame.
+	 */
+	private static final int FRAME_DELAY = 16;
+
+	private MouseGestures mouseGestures;
+	private boolean framePaced;
+	private TrailOverlay overlay;
+	private int overlayX;
+	private int overlayY;
+
+	public OverlayMouseTrailRenderer(MouseGestures mouseGestures) {
+		this.mouseGestures = mouseGestures;
+		framePaced = true;
+	}
+
+	public boolean isFramePaced() {
+		return framePaced;
+	}
+
+	/**
+	 * In frame paced mode, enabled by default, new points are only buffered and painted
+	 * together once per display frame. Otherwise each point is painted when it is added.
+	 */
+	public void setFramePaced(boolean framePaced) {
+		this.framePaced = framePaced;
+	}
+
+	public void addPoint(Component source, int screenX, int screenY) {
+		if (overlay == null) {
+			JFrame frame = getFrame(source);
+			if (frame == null) return;
+			TrailOverlay trailOverlay = getOverlay(frame.getLayeredPane());
+			if (!trailOverlay.isShowing()) return;
+			// the frame does not move during a gesture
+			Point overlayLocation = trailOverlay.getLocationOnScreen();
+			overlayX = overlayLocation.x;
+			overlayY = overlayLocation.y;
+			overlay = trailOverlay;
+			overlay.start(mouseGestures.getMouseTrailColor(), mouseGestures.getMouseTrailStroke(), framePaced);
+		}
+		overlay.addPoint(screenX - overlayX, screenY - overlayY);
+	}
+
+	public void clear() {
+		if (overlay != null) {
+			overlay.clear();
+			overlay = null;
+		}
+	}
+
+	private JFrame getFrame(Component source) {
+		TrailFrameProvider trailFrameProvider = mouseGestures.getTrailFrameProvider();
+		if (trailFrameProvider != null) return trailFrameProvider.getTrailFrame(source);
+		Window window = source instanceof Window ? (Window)source : SwingUtilities.getWindowAncestor(source);
+		return window instanceof JFrame ? (JFrame)window : null;
+	}
+
+	/**
+	 * Returns the overlay of the layered pane, installed on first use and kept for later gestures,
+	 * since removing it would repaint the whole pane.
+	 */
+	private static TrailOverlay getOverlay(JLayeredPane layeredPane) {
+		TrailOverlay overlay = (TrailOverlay)layeredPane.getClientProperty(OVERLAY_PROPERTY);
+		if (overlay == null) {
+			overlay = new TrailOverlay();
+			layeredPane.add(overlay, JLayeredPane.DRAG_LAYER);
+			layeredPane.putClientProperty(OVERLAY_PROPERTY, overlay);
+		}
+		if (!overlay.getSize().equals(layeredPane.getSize())) {
+			overlay.setBounds(0, 0, layeredPane.getWidth(), layeredPane.getHeight());
+		}
+		return overlay;
+	}
+
+	private static class TrailOverlay extends JComponent implements ActionListener {
+		private static final long serialVersionUID = 1L;
+
+		private int[] xs = new int[64];
+		private int[] ys = new int[64];
+		private int pointCount;
+		// points already appended to the path
+		private int flushedCount;
+		private Path2D.Float path = new Path2D.Float();
+		private int minX;
+		private int minY;
+		private int maxX;
+		private int maxY;
+		private Color color;
+		private BasicStroke stroke;
+		private Timer timer;
+
+		TrailOverlay() {
+			setOpaque(false);
+		}
+
+		void start(Color color, BasicStroke stroke, boolean framePaced) {
+			this.color = color;
+			this.stroke = stroke;
+			if (framePaced) {
+				if (timer == null) {
+					timer = new Timer(FRAME_DELAY, this);
+				}
+				timer.start();
+			}
+		}
+
+		void addPoint(int x, int y) {
+			if (pointCount == xs.length) {
+				xs = Arrays.copyOf(xs, pointCount * 2);
+				ys = Arrays.copyOf(ys, pointCount * 2);
+			}
+			xs[pointCount] = x;
+			ys[pointCount] = y;
+			pointCount++;
+			if (timer == null || !timer.isRunning()) {
+				flush();
+			}
+		}
+
+		public void actionPerformed(ActionEvent e) {
+			flush();
+		}
+
+		/**
+		 * Appends the new points to the path and repaints the region they cover.
+		 */
+		private void flush() {
+			if (flushedCount == pointCount) return;
+			int first = flushedCount;
+			if (first == 0) {
+				path.moveTo(xs[0], ys[0]);
+				minX = maxX = xs[0];
+				minY = maxY = ys[0];
+				first = 1;
+			}
+			// the region starts at the last flushed point, the first new segment begins there
+			int regionMinX = xs[first - 1];
+			int regionMinY = ys[first - 1];
+			int regionMaxX = regionMinX;
+			int regionMaxY = regionMinY;
+			for (int i = first; i < pointCount; i++) {
+				int x = xs[i];
+				int y = ys[i];
+				path.lineTo(x, y);
+				regionMinX = Math.min(regionMinX, x);
+				regionMinY = Math.min(regionMinY, y);
+				regionMaxX = Math.max(regionMaxX, x);
+				regionMaxY = Math.max(regionMaxY, y);
+			}
+			flushedCount = pointCount;
+			if (first == pointCount) return;
+			minX = Math.min(minX, regionMinX);
+			minY = Math.min(minY, regionMinY);
+			maxX = Math.max(maxX, regionMaxX);
+			maxY = Math.max(maxY, regionMaxY);
+			repaintRegion(regionMinX, regionMinY, regionMaxX, regionMaxY);
+		}
+
+		void clear() {
+			if (timer != null) {
+				timer.stop();
+			}
+			if (flushedCount > 1) {
+				repaintRegion(minX, minY, maxX, maxY);
+			}
+			path.reset();
+			pointCount = 0;
+			flushedCount = 0;
+		}
+
+		private void repaintRegion(int x1, int y1, int x2, int y2) {
+			// the stroke extends beyond the points by half its width, keep a pixel for rounding
+			int margin = (int)Math.ceil(stroke.getLineWidth() / 2) + 1;
+			repaint(x1 - margin, y1 - margin, x2 - x1 + 2 * margin + 1, y2 - y1 + 2 * margin + 1);
+		}
+
+		public boolean contains(int x, int y) {
+			// never a target of mouse events
+			return false;
+		}
+
+		protected void paintComponent(Graphics g) {
+			if (flushedCount < 2) return;
+			Graphics2D graphics = (Graphics2D)g;
+			graphics.setColor(color);
+			graphics.setStroke(stroke);
+			graphics.draw(path);
+		}
+	}
+}
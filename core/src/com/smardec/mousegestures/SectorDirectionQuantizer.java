@@ -0,0 +1,128 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+/**
+ * Direction quantizer splitting the plane into 4, 8 or 16 equal sectors centered on the axes.
+ * <br>The octant of a displacement is found from its signs and the dominant axis, the sector
+ * inside the octant by comparing against fixed point tangents. The movement is then read
+ * from a table precomputed for every octant and sub-sector, so classification uses
+ * integer arithmetic only.
+ * <br>With 16 sectors a sector lying between a straight and a diagonal direction is mapped
+ * to the straight one, so straight movements cover 67.5 degrees and diagonal ones 22.5 degrees.
+ */
+public class SectorDirectionQuantizer implements DirectionQuantizer {
+	private static final int FIXED_POINT_SHIFT = 32;
+	/**
+	 * Displacements are scaled below this, so that shifted and multiplied values fit in a long.
+	 */
+	private static final long MAX_DELTA = 1L << 30;
+
+	/**
+	 * Movements at multiples of 45 degrees, counterclockwise starting from right.
+	 */
+	private static final int[] DIRECTIONS = {
+		Movements.RIGHT, Movements.UP_RIGHT, Movements.UP, Movements.UP_LEFT,
+		Movements.LEFT, Movements.DOWN_LEFT, Movements.DOWN, Movements.DOWN_RIGHT
+	};
+
+	public static final SectorDirectionQuantizer FOUR_SECTORS = new SectorDirectionQuantizer(4);
+	public static final SectorDirectionQuantizer EIGHT_SECTORS = new SectorDirectionQuantizer(8);
+	public static final SectorDirectionQuantizer SIXTEEN_SECTORS = new SectorDirectionQuantizer(16);
+
+	private int sectors;
+	/**
+	 * Fixed point tangents of the sector boundaries lying strictly inside an octant.
+	 */
+	private long[] tangents;
+	private int subSectors;
+	private int[] moves;
+
+	public SectorDirectionQuantizer(int sectors) {
+		if (sectors != 4 && sectors != 8 && sectors != 16) {
+			throw new IllegalArgumentException("Unsupported sector count " + sectors + ", should be 4, 8 or 16");
+		}
+		this.sectors = sectors;
+		double sectorAngle = 360.0 / sectors;
+		int boundaryCount = 0;
+		for (double boundary = sectorAngle / 2; boundary < 45; boundary += sectorAngle) {
+			boundaryCount++;
+		}
+		double[] boundaries = new double[boundaryCount + 2];
+		tangents = new long[boundaryCount];
+		for (int i = 0; i < boundaryCount; i++) {
+			boundaries[i + 1] = sectorAngle / 2 + i * sectorAngle;
+			tangents[i] = Math.round(Math.tan(Math.toRadians(boundaries[i + 1])) * (1L << FIXED_POINT_SHIFT));
+		}
+		boundaries[boundaryCount + 1] = 45;
+		subSectors = boundaryCount + 1;
+		moves = new int[8 * subSectors];
+		for (int octant = 0; octant < 8; octant++) {
+			for (int subSector = 0; subSector < subSectors; subSector++) {
+				// angle from the dominant axis, taken in the middle of the sub-sector
+				double angle = (boundaries[subSector] + boundaries[subSector + 1]) / 2;
+				if ((octant & 1) != 0) angle = 90 - angle;
+				if ((octant & 4) != 0) angle = 180 - angle;
+				if ((octant & 2) == 0) angle = 360 - angle;
+				moves[octant * subSectors + subSector] = getSectorMove(angle);
+			}
+		}
+	}
+
+	public int getSectors() {
+		return sectors;
+	}
+
+	public int getMove(int deltaX, int deltaY) {
+		long absDeltaX = deltaX < 0 ? -(long)deltaX : deltaX;
+		long absDeltaY = deltaY < 0 ? -(long)deltaY : deltaY;
+		// octant bits: 4 - left, 2 - up, 1 - vertical axis dominates
+		int octant = (deltaX < 0 ? 4 : 0) | (deltaY < 0 ? 2 : 0);
+		long minor = absDeltaY;
+		long major = absDeltaX;
+		if (absDeltaY > absDeltaX) {
+			octant |= 1;
+			minor = absDeltaX;
+			major = absDeltaY;
+		}
+		// a zero displacement lies on no sector, it is taken as right like the former tangent test did
+		if (major == 0) return moves[0];
+		while (major >= MAX_DELTA) {
+			major >>= 1;
+			minor >>= 1;
+		}
+		minor <<= FIXED_POINT_SHIFT;
+		int subSector = 0;
+		while (subSector < tangents.length && minor >= major * tangents[subSector]) {
+			subSector++;
+		}
+		return moves[octant * subSectors + subSector];
+	}
+
+	private int getSectorMove(double angle) {
+		double sectorAngle = 360.0 / sectors;
+		int sector = (int)Math.floor((angle + sectorAngle / 2) / sectorAngle) % sectors;
+		// sector center expressed in 22.5 degree steps, odd steps fall between two directions
+		int step = sector * 16 / sectors;
+		int direction = step / 2;
+		if (step % 2 != 0 && direction % 2 != 0) direction++;
+		return DIRECTIONS[direction % 8];
+	}
+}
@@ -0,0 +1,271 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+import com.smardec.mousegestures.DirectionQuantizer;
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.MouseGestures;
+import com.smardec.mousegestures.Movements;
+import com.smardec.mousegestures.SectorDirectionQuantizer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Replays a corpus of labeled gesture traces with different recognition settings
+ * and reports accuracy, false movement rate and throughput for each combination.
+ * <br>Each trace holds one gesture, its expected gesture is the beginning of the file name
+ * up to the first '_' or '.', written with the default movements (e.g. <code>LDR_0042.mgt</code>).
+ * Traces without such a label only count for throughput.
+ * <br>Command line usage:
+ * <code><pre>
+ *      java -Djava.awt.headless=true -cp MouseGestures.jar com.smardec.mousegestures.trace.GestureCorpusEvaluator
+ *           [-grid 20,30,50] [-sectors 4,8,16] [-wheel] [-parallelism n] corpus-directory</pre>
+ * </code>
+ * 4 sectors correspond to disabled diagonal gestures, 8 sectors to enabled ones.
+ */
+public class GestureCorpusEvaluator {
+	private static final String TRACE_EXTENSION = ".mgt";
+	/**
+	 * Number of traces below which a task replays them itself instead of forking.
+	 */
+	private static final int FORK_THRESHOLD = 16;
+
+	private ForkJoinPool pool;
+	private GestureTraceReader[] traces;
+	private long[] expectedGestures;
+
+	public GestureCorpusEvaluator(List<GestureTraceReader> traces, int parallelism) {
+		this.traces = traces.toArray(new GestureTraceReader[traces.size()]);
+		pool = new ForkJoinPool(parallelism);
+		expectedGestures = new long[this.traces.length];
+		for (int i = 0; i < this.traces.length; i++) {
+			expectedGestures[i] = getExpectedGesture(this.traces[i].getFile());
+		}
+	}
+
+	/**
+	 * Replays every trace with the given settings, in parallel.
+	 */
+	public Statistics evaluate(int gridSize, DirectionQuantizer quantizer, boolean wheelEnabled) {
+		return pool.invoke(new EvaluationTask(gridSize, quantizer, wheelEnabled, 0, traces.length));
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Accumulated results of a corpus evaluation.
+	 */
+	public static class Statistics {
+		private int traceCount;
+		private int labeledCount;
+		private int correctCount;
+		private long recognizedMoves;
+		private long falseMoves;
+		private long eventCount;
+		private long eventNanos;
+
+		public int getTraceCount() {
+			return traceCount;
+		}
+
+		public int getLabeledCount() {
+			return labeledCount;
+		}
+
+		/**
+		 * Returns the fraction of labeled traces recognized as their expected gesture.
+		 */
+		public double getAccuracy() {
+			return labeledCount == 0 ? 0 : (double)correctCount / labeledCount;
+		}
+
+		/**
+		 * Returns the fraction of recognized movements, in labeled traces, which are not part
+		 * of the longest common subsequence with the expected gesture.
+		 */
+		public double getFalseMoveRate() {
+			return recognizedMoves == 0 ? 0 : (double)falseMoves / recognizedMoves;
+		}
+
+		public double getEventsPerSecond() {
+			return eventNanos == 0 ? 0 : eventCount * 1e9 / eventNanos;
+		}
+
+		private void add(long expected, long recognized, ReplayResult result) {
+			traceCount++;
+			eventCount += result.getEventCount();
+			eventNanos += result.getTotalNanos();
+			if (expected == GestureCodes.INVALID) return;
+			labeledCount++;
+			if (expected == recognized) correctCount++;
+			int recognizedLength = GestureCodes.length(recognized);
+			recognizedMoves += recognizedLength;
+			falseMoves += recognizedLength - getCommonMoves(expected, recognized);
+		}
+
+		private void merge(Statistics that) {
+			traceCount += that.traceCount;
+			labeledCount += that.labeledCount;
+			correctCount += that.correctCount;
+			recognizedMoves += that.recognizedMoves;
+			falseMoves += that.falseMoves;
+			eventCount += that.eventCount;
+			eventNanos += that.eventNanos;
+		}
+	}
+
+	private class EvaluationTask extends RecursiveTask<Statistics> {
+		private static final long serialVersionUID = 1L;
+
+		private int gridSize;
+		private DirectionQuantizer quantizer;
+		private boolean wheelEnabled;
+		private int from;
+		private int to;
+
+		private EvaluationTask(int gridSize, DirectionQuantizer quantizer, boolean wheelEnabled, int from, int to) {
+			this.gridSize = gridSize;
+			this.quantizer = quantizer;
+			this.wheelEnabled = wheelEnabled;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected Statistics compute() {
+			if (to - from > FORK_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				EvaluationTask left = new EvaluationTask(gridSize, quantizer, wheelEnabled, from, middle);
+				EvaluationTask right = new EvaluationTask(gridSize, quantizer, wheelEnabled, middle, to);
+				left.fork();
+				Statistics statistics = right.compute();
+				statistics.merge(left.join());
+				return statistics;
+			}
+			// MouseGestures is not thread safe, each task uses its own instance
+			MouseGestures mouseGestures = new MouseGestures();
+			mouseGestures.setGridSize(gridSize);
+			mouseGestures.setDirectionQuantizer(quantizer);
+			mouseGestures.setWheelEnabled(wheelEnabled);
+			GestureTraceReplayer replayer = new GestureTraceReplayer(mouseGestures);
+			Statistics statistics = new Statistics();
+			for (int i = from; i < to; i++) {
+				ReplayResult result = replayer.replay(traces[i]);
+				long[] gestures = result.getGestures();
+				long recognized = gestures.length == 0 ? GestureCodes.EMPTY : gestures[gestures.length - 1];
+				statistics.add(expectedGestures[i], recognized, result);
+			}
+			return statistics;
+		}
+	}
+
+	private static long getExpectedGesture(File file) {
+		String name = file.getName();
+		int end = 0;
+		while (end < name.length() && name.charAt(end) != '_' && name.charAt(end) != '.') {
+			end++;
+		}
+		if (end == 0) return GestureCodes.INVALID;
+		return GestureCodes.encode(name.substring(0, end), Movements.DEFAULT);
+	}
+
+	private static int getCommonMoves(long gesture1, long gesture2) {
+		int length1 = GestureCodes.length(gesture1);
+		int length2 = GestureCodes.length(gesture2);
+		int[][] common = new int[length1 + 1][length2 + 1];
+		for (int i = 1; i <= length1; i++) {
+			for (int j = 1; j <= length2; j++) {
+				if (GestureCodes.getMove(gesture1, i - 1) == GestureCodes.getMove(gesture2, j - 1)) {
+					common[i][j] = common[i - 1][j - 1] + 1;
+				} else {
+					common[i][j] = Math.max(common[i - 1][j], common[i][j - 1]);
+				}
+			}
+		}
+		return common[length1][length2];
+	}
+
+	private static int[] parseInts(String list) {
+		String[] items = list.split(",");
+		int[] result = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			result[i] = Integer.parseInt(items[i].trim());
+		}
+		return result;
+	}
+
+	public static void main(String[] args) throws IOException {
+		int[] gridSizes = {30};
+		int[] sectors = {4, 8};
+		boolean wheelEnabled = false;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i++) {
+			if ("-grid".equals(args[i])) {
+				gridSizes = parseInts(args[++i]);
+			} else if ("-sectors".equals(args[i])) {
+				sectors = parseInts(args[++i]);
+			} else if ("-wheel".equals(args[i])) {
+				wheelEnabled = true;
+			} else if ("-parallelism".equals(args[i])) {
+				parallelism = Integer.parseInt(args[++i]);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		if (i != args.length - 1) {
+			System.err.println("Usage: GestureCorpusEvaluator [-grid 20,30,50] [-sectors 4,8,16] [-wheel]"
+							   + " [-parallelism n] corpus-directory");
+			System.exit(1);
+		}
+		File[] files = new File(args[i]).listFiles();
+		if (files == null) throw new IOException(args[i] + " is not a directory");
+		Arrays.sort(files);
+		List<GestureTraceReader> traces = new ArrayList<GestureTraceReader>();
+		for (File file : files) {
+			if (file.isFile() && file.getName().endsWith(TRACE_EXTENSION)) {
+				traces.add(new GestureTraceReader(file));
+			}
+		}
+		GestureCorpusEvaluator evaluator = new GestureCorpusEvaluator(traces, parallelism);
+		try {
+			System.out.println("grid\tsectors\ttraces\tlabeled\taccuracy\tfalse moves\tevents/s");
+			for (int gridSize : gridSizes) {
+				for (int sectorCount : sectors) {
+					Statistics statistics = evaluator.evaluate(gridSize, new SectorDirectionQuantizer(sectorCount),
+															   wheelEnabled);
+					System.out.println(gridSize + "\t" + sectorCount + "\t" + statistics.getTraceCount() + "\t"
+									   + statistics.getLabeledCount() + "\t"
+									   + String.format("%.2f%%", statistics.getAccuracy() * 100) + "\t\t"
+									   + String.format("%.2f%%", statistics.getFalseMoveRate() * 100) + "\t\t"
+									   + Math.round(statistics.getEventsPerSecond()));
+				}
+			}
+		} finally {
+			evaluator.shutdown();
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+/**
+ * Binary format of recorded gesture traces.
+ * <br>A trace file starts with a header: magic number (int), format version (int)
+ * and number of records (long). It is followed by fixed size records, one per mouse event:
+ * event id (int), modifiers (int), screen x (int), screen y (int), timestamp (long)
+ * and wheel rotation (int). All values are big-endian.
+ * <br>Modifiers are extended ones (see {@link java.awt.event.InputEvent#getModifiersEx()}), with
+ * the button of press, release and click events. Version 1 traces held the older modifiers.
+ */
+public class GestureTrace {
+	public static final int MAGIC = 0x4D475452; // "MGTR"
+	public static final int VERSION = 2;
+
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_COUNT_OFFSET = 8;
+	public static final int RECORD_SIZE = 28;
+
+	static final int ID_OFFSET = 0;
+	static final int MODIFIERS_OFFSET = 4;
+	static final int X_OFFSET = 8;
+	static final int Y_OFFSET = 12;
+	static final int WHEN_OFFSET = 16;
+	static final int WHEEL_ROTATION_OFFSET = 24;
+
+	private GestureTrace() {
+	}
+
+	static long getRecordPosition(long index) {
+		return HEADER_SIZE + index * RECORD_SIZE;
+	}
+}
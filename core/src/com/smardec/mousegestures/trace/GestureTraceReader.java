@@ -0,0 +1,97 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a trace file (see {@link GestureTrace}) through a read-only memory mapping.
+ * Records are accessed by index without allocation. The file itself is closed as soon
+ * as it is mapped.
+ */
+public class GestureTraceReader implements Closeable {
+	private File file;
+	private MappedByteBuffer buffer;
+	private int recordCount;
+
+	public GestureTraceReader(File file) throws IOException {
+		this.file = file;
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			if (channel.size() < GestureTrace.HEADER_SIZE) throw new IOException(file + " is not a gesture trace");
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != GestureTrace.MAGIC || buffer.getInt(4) != GestureTrace.VERSION) {
+				throw new IOException(file + " is not a gesture trace");
+			}
+			long count = buffer.getLong(GestureTrace.RECORD_COUNT_OFFSET);
+			if (count < 0 || GestureTrace.getRecordPosition(count) > channel.size()) {
+				throw new IOException(file + " is truncated");
+			}
+			recordCount = (int)count;
+		} finally {
+			randomAccessFile.close();
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	public int getRecordCount() {
+		return recordCount;
+	}
+
+	public int getId(int index) {
+		return buffer.getInt(getPosition(index) + GestureTrace.ID_OFFSET);
+	}
+
+	public int getModifiers(int index) {
+		return buffer.getInt(getPosition(index) + GestureTrace.MODIFIERS_OFFSET);
+	}
+
+	public int getX(int index) {
+		return buffer.getInt(getPosition(index) + GestureTrace.X_OFFSET);
+	}
+
+	public int getY(int index) {
+		return buffer.getInt(getPosition(index) + GestureTrace.Y_OFFSET);
+	}
+
+	public long getWhen(int index) {
+		return buffer.getLong(getPosition(index) + GestureTrace.WHEN_OFFSET);
+	}
+
+	public int getWheelRotation(int index) {
+		return buffer.getInt(getPosition(index) + GestureTrace.WHEEL_ROTATION_OFFSET);
+	}
+
+	public void close() throws IOException {
+		buffer = null;
+	}
+
+	private static int getPosition(int index) {
+		return (int)GestureTrace.getRecordPosition(index);
+	}
+}
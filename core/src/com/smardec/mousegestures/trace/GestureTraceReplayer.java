@@ -0,0 +1,127 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.MouseGestures;
+import com.smardec.mousegestures.MouseGesturesListener;
+import com.smardec.mousegestures.Movements;
+import com.smardec.mousegestures.SectorDirectionQuantizer;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Feeds recorded traces to {@link MouseGestures} at full speed, without a display.
+ * <br>Command line usage:
+ * <code><pre>
+ *      java -Djava.awt.headless=true -cp MouseGestures.jar com.smardec.mousegestures.trace.GestureTraceReplayer
+ *           [-grid size] [-diagonal] [-sectors 4|8|16] [-wheel] trace...</pre>
+ * </code>
+ */
+public class GestureTraceReplayer {
+	private MouseGestures mouseGestures;
+	private long[] gestures;
+	private int gestureCount;
+
+	public GestureTraceReplayer(MouseGestures mouseGestures) {
+		this.mouseGestures = mouseGestures;
+	}
+
+	public ReplayResult replay(GestureTraceReader trace) {
+		int recordCount = trace.getRecordCount();
+		long[] eventNanos = new long[recordCount];
+		gestures = new long[16];
+		gestureCount = 0;
+		MouseGesturesListener listener = new MouseGesturesListener() {
+			public void gestureMovementRecognized(long gesture) {}
+
+			public void processGesture(long gesture) {
+				addGesture(gesture);
+			}
+		};
+		mouseGestures.addMouseGesturesListener(listener);
+		try {
+			for (int i = 0; i < recordCount; i++) {
+				int id = trace.getId(i);
+				int modifiers = trace.getModifiers(i);
+				int x = trace.getX(i);
+				int y = trace.getY(i);
+				int wheelRotation = trace.getWheelRotation(i);
+				long start = System.nanoTime();
+				mouseGestures.processEvent(id, modifiers, x, y, wheelRotation);
+				eventNanos[i] = System.nanoTime() - start;
+			}
+		} finally {
+			mouseGestures.removeMouseGesturesListener(listener);
+		}
+		long[] result = new long[gestureCount];
+		System.arraycopy(gestures, 0, result, 0, gestureCount);
+		gestures = null;
+		return new ReplayResult(result, eventNanos);
+	}
+
+	private void addGesture(long gesture) {
+		if (gestureCount == gestures.length) {
+			long[] newGestures = new long[gestures.length * 2];
+			System.arraycopy(gestures, 0, newGestures, 0, gestureCount);
+			gestures = newGestures;
+		}
+		gestures[gestureCount++] = gesture;
+	}
+
+	public static void main(String[] args) throws IOException {
+		MouseGestures mouseGestures = new MouseGestures();
+		int i = 0;
+		for (; i < args.length && args[i].startsWith("-"); i++) {
+			if ("-grid".equals(args[i])) {
+				mouseGestures.setGridSize(Integer.parseInt(args[++i]));
+			} else if ("-diagonal".equals(args[i])) {
+				mouseGestures.setDiagonalEnabled(true);
+			} else if ("-sectors".equals(args[i])) {
+				mouseGestures.setDirectionQuantizer(new SectorDirectionQuantizer(Integer.parseInt(args[++i])));
+			} else if ("-wheel".equals(args[i])) {
+				mouseGestures.setWheelEnabled(true);
+			} else {
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		if (i == args.length) {
+			System.err.println("Usage: GestureTraceReplayer [-grid size] [-diagonal] [-sectors 4|8|16] [-wheel] trace...");
+			System.exit(1);
+		}
+		GestureTraceReplayer replayer = new GestureTraceReplayer(mouseGestures);
+		for (; i < args.length; i++) {
+			GestureTraceReader trace = new GestureTraceReader(new File(args[i]));
+			try {
+				ReplayResult result = replayer.replay(trace);
+				System.out.println(args[i] + ": " + result.getEventCount() + " events");
+				for (long gesture : result.getGestures()) {
+					System.out.println("  " + (gesture == GestureCodes.INVALID ? "<too long>"
+																		   : GestureCodes.decode(gesture, Movements.DEFAULT)));
+				}
+				System.out.println("  " + Math.round(result.getEventsPerSecond()) + " events/s, per event: median "
+								   + result.getPercentileNanos(50) + " ns, 99% " + result.getPercentileNanos(99)
+								   + " ns, max " + result.getPercentileNanos(100) + " ns");
+			} finally {
+				trace.close();
+			}
+		}
+	}
+}
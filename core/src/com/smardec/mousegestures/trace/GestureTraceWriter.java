@@ -0,0 +1,94 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Appends mouse events to a trace file (see {@link GestureTrace}) through a memory mapping.
+ * <br>The mapping grows by doubling, the record count in the header is updated after each
+ * record, so a trace stays readable even if the writer is not closed.
+ * Records are appended to an existing trace file.
+ */
+public class GestureTraceWriter implements Closeable {
+	private static final int INITIAL_RECORD_CAPACITY = 4096;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long recordCount;
+	private long recordCapacity;
+
+	public GestureTraceWriter(File file) throws IOException {
+		this.file = new RandomAccessFile(file, "rw");
+		channel = this.file.getChannel();
+		recordCount = 0;
+		if (this.file.length() >= GestureTrace.HEADER_SIZE) {
+			if (this.file.readInt() != GestureTrace.MAGIC || this.file.readInt() != GestureTrace.VERSION) {
+				close();
+				throw new IOException(file + " is not a gesture trace");
+			}
+			recordCount = this.file.readLong();
+		}
+		map(Math.max(recordCount * 2, INITIAL_RECORD_CAPACITY));
+		buffer.putInt(0, GestureTrace.MAGIC);
+		buffer.putInt(4, GestureTrace.VERSION);
+		buffer.putLong(GestureTrace.RECORD_COUNT_OFFSET, recordCount);
+	}
+
+	public void append(int id, int modifiers, int x, int y, long when, int wheelRotation) throws IOException {
+		if (buffer == null) throw new IOException("Trace writer is closed");
+		if (recordCount == recordCapacity) {
+			map(recordCapacity * 2);
+		}
+		int position = (int)GestureTrace.getRecordPosition(recordCount);
+		buffer.putInt(position + GestureTrace.ID_OFFSET, id);
+		buffer.putInt(position + GestureTrace.MODIFIERS_OFFSET, modifiers);
+		buffer.putInt(position + GestureTrace.X_OFFSET, x);
+		buffer.putInt(position + GestureTrace.Y_OFFSET, y);
+		buffer.putLong(position + GestureTrace.WHEN_OFFSET, when);
+		buffer.putInt(position + GestureTrace.WHEEL_ROTATION_OFFSET, wheelRotation);
+		recordCount++;
+		buffer.putLong(GestureTrace.RECORD_COUNT_OFFSET, recordCount);
+	}
+
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	public void close() throws IOException {
+		if (buffer != null) {
+			buffer.force();
+			buffer = null;
+		}
+		file.close();
+	}
+
+	private void map(long capacity) throws IOException {
+		long size = GestureTrace.getRecordPosition(capacity);
+		if (size > Integer.MAX_VALUE) throw new IOException("Trace file is too large");
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		recordCapacity = capacity;
+	}
+}
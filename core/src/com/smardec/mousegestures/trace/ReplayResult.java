@@ -0,0 +1,76 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+package com.smardec.mousegestures.trace;
+
+import java.util.Arrays;
+
+/**
+ * Gestures recognized while replaying a trace and the time spent on each event.
+ */
+public class ReplayResult {
+	private long[] gestures;
+	private long[] eventNanos;
+	private long totalNanos;
+
+	ReplayResult(long[] gestures, long[] eventNanos) {
+		this.gestures = gestures;
+		this.eventNanos = eventNanos;
+		for (long nanos : eventNanos) {
+			totalNanos += nanos;
+		}
+	}
+
+	/**
+	 * Returns the completed gestures in order, packed as described in
+	 * {@link com.smardec.mousegestures.GestureCodes}.
+	 */
+	public long[] getGestures() {
+		return gestures;
+	}
+
+	/**
+	 * Returns the time spent processing each event, in nanoseconds.
+	 */
+	public long[] getEventNanos() {
+		return eventNanos;
+	}
+
+	public int getEventCount() {
+		return eventNanos.length;
+	}
+
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	public double getEventsPerSecond() {
+		return totalNanos == 0 ? 0 : eventNanos.length * 1e9 / totalNanos;
+	}
+
+	/**
+	 * Returns the event processing time at the given percentile (0 - 100), in nanoseconds.
+	 */
+	public long getPercentileNanos(double percentile) {
+		if (eventNanos.length == 0) return 0;
+		long[] sorted = eventNanos.clone();
+		Arrays.sort(sorted);
+		int index = (int)Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+	}
+}
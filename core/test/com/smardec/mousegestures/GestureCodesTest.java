@@ -0,0 +1,97 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GestureCodesTest {
+	private final Movements movements = new Movements();
+
+	@Test
+	public void movesArePackedInFourBits() {
+		long gesture = GestureCodes.EMPTY;
+		gesture = GestureCodes.append(gesture, Movements.LEFT);
+		gesture = GestureCodes.append(gesture, Movements.WHEEL_DOWN);
+		gesture = GestureCodes.append(gesture, Movements.UP);
+		// the first movement takes the lowest bits
+		assertEquals(0x3A1L, gesture);
+		assertEquals(3, GestureCodes.length(gesture));
+		assertEquals(Movements.LEFT, GestureCodes.getMove(gesture, 0));
+		assertEquals(Movements.WHEEL_DOWN, GestureCodes.getMove(gesture, 1));
+		assertEquals(Movements.UP, GestureCodes.getMove(gesture, 2));
+		assertEquals(0, GestureCodes.getMove(gesture, 3));
+		assertEquals(Movements.UP, GestureCodes.getLastMove(gesture));
+	}
+
+	@Test
+	public void emptyGesture() {
+		assertEquals(0, GestureCodes.length(GestureCodes.EMPTY));
+		assertEquals(0, GestureCodes.getLastMove(GestureCodes.EMPTY));
+		assertEquals("", GestureCodes.decode(GestureCodes.EMPTY, movements));
+		assertEquals(GestureCodes.EMPTY, GestureCodes.encode("", movements));
+	}
+
+	@Test
+	public void sixteenMovesFitAndSeventeenOverflow() {
+		long gesture = GestureCodes.EMPTY;
+		for (int i = 0; i < GestureCodes.MAX_LENGTH; i++) {
+			gesture = GestureCodes.append(gesture, Movements.WHEEL_DOWN);
+			assertEquals(i + 1, GestureCodes.length(gesture));
+		}
+		// the last movement takes the sign bit, the gesture is still valid
+		assertTrue(gesture < 0);
+		assertTrue(gesture != GestureCodes.INVALID);
+		assertEquals(Movements.WHEEL_DOWN, GestureCodes.getLastMove(gesture));
+		assertEquals(GestureCodes.INVALID, GestureCodes.append(gesture, Movements.LEFT));
+	}
+
+	@Test
+	public void invalidGestureStaysInvalid() {
+		assertEquals(0, GestureCodes.length(GestureCodes.INVALID));
+		assertEquals(0, GestureCodes.getLastMove(GestureCodes.INVALID));
+		assertEquals(GestureCodes.INVALID, GestureCodes.append(GestureCodes.INVALID, Movements.LEFT));
+		assertEquals("", GestureCodes.decode(GestureCodes.INVALID, movements));
+	}
+
+	@Test
+	public void encodeAndDecode() {
+		String gesture = "LRUD1379+-";
+		long code = GestureCodes.encode(gesture, movements);
+		assertEquals(gesture.length(), GestureCodes.length(code));
+		assertEquals(gesture, GestureCodes.decode(code, movements));
+		String longest = "LRUDLRUDLRUDLRUD";
+		assertEquals(longest, GestureCodes.decode(GestureCodes.encode(longest, movements), movements));
+		assertEquals(GestureCodes.INVALID, GestureCodes.encode(longest + "L", movements));
+		assertEquals(GestureCodes.INVALID, GestureCodes.encode("LX", movements));
+		assertEquals(GestureCodes.INVALID, GestureCodes.encode(null, movements));
+	}
+
+	@Test
+	public void shorterGesturesComeFirst() {
+		long left = GestureCodes.encode("L", movements);
+		long leftRight = GestureCodes.encode("LR", movements);
+		long right = GestureCodes.encode("R", movements);
+		assertTrue(GestureCodes.compare(left, leftRight) < 0);
+		assertTrue(GestureCodes.compare(leftRight, right) < 0);
+		assertEquals(0, GestureCodes.compare(leftRight, GestureCodes.encode("LR", movements)));
+	}
+}
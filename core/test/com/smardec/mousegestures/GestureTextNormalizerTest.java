@@ -0,0 +1,86 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GestureTextNormalizerTest {
+	private final GestureTextNormalizer normalizer = new GestureTextNormalizer(new Movements());
+
+	@Test
+	public void repeatedMovesAreCollapsed() {
+		assertEquals("", normalizer.normalize(null));
+		assertEquals("", normalizer.normalize(""));
+		assertEquals("L", normalizer.normalize("LLLL"));
+		assertEquals("LRL", normalizer.normalize("LLRRL"));
+		assertEquals("UD13", normalizer.normalize("UUDD1133"));
+	}
+
+	@Test
+	public void wheelMovesAreRepeated() {
+		assertEquals("+++", normalizer.normalize("+++"));
+		assertEquals("L++--R", normalizer.normalize("LL++--RR"));
+	}
+
+	@Test
+	public void otherCharactersAreDropped() {
+		assertEquals("LR", normalizer.normalize("L x\tL?R"));
+		// dropped characters do not separate repeated moves
+		assertEquals("L", normalizer.normalize("L.L L"));
+		assertEquals("", normalizer.normalize("\u20ac\uffff"));
+	}
+
+	@Test
+	public void lowerCaseMovesAreAccepted() {
+		assertEquals("LRU", normalizer.normalize("lrU"));
+		assertEquals("L", normalizer.normalize("lL"));
+		assertEquals(Movements.UP, normalizer.getCode('u'));
+		assertEquals(Movements.UP, normalizer.getCode('U'));
+		assertEquals(0, normalizer.getCode('x'));
+	}
+
+	@Test
+	public void movesTakePrecedenceOverCaseVariants() {
+		// 'l' is left and 'L' right, so 'L' must not be read as the upper case of left
+		GestureTextNormalizer caseNormalizer = new GestureTextNormalizer(new Movements("lLudabce+-"));
+		assertEquals(Movements.LEFT, caseNormalizer.getCode('l'));
+		assertEquals(Movements.RIGHT, caseNormalizer.getCode('L'));
+		assertEquals(Movements.UP, caseNormalizer.getCode('U'));
+		assertEquals("lLu", caseNormalizer.normalize("lLU"));
+	}
+
+	@Test
+	public void insertedTextDoesNotRepeatItsNeighbours() {
+		// the previous and next characters of the document, as passed by the gesture field
+		assertEquals("", normalizer.normalize("L", 'L', (char)0));
+		assertEquals("", normalizer.normalize("l", 'L', (char)0));
+		assertEquals("", normalizer.normalize("R", (char)0, 'R'));
+		assertEquals("U", normalizer.normalize("LU", 'L', (char)0));
+		assertEquals("L", normalizer.normalize("LR", (char)0, 'R'));
+		assertEquals("R", normalizer.normalize("LRL", 'L', 'L'));
+		assertEquals("", normalizer.normalize("LL", 'L', 'L'));
+		assertEquals("D", normalizer.normalize("D", 'L', 'R'));
+		// wheel moves may repeat their neighbours
+		assertEquals("+", normalizer.normalize("+", '+', '+'));
+		assertEquals("-+", normalizer.normalize("-+", '-', '+'));
+	}
+}
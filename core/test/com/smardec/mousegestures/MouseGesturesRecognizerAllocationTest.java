@@ -0,0 +1,87 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.junit.Assert.assertEquals;
+
+public class MouseGesturesRecognizerAllocationTest {
+	private static final int EVENT_COUNT = 1000;
+	private static final int WARM_UP_ROUNDS = 200;
+	private static final int MEASURED_ROUNDS = 1000;
+	private static final int MEASUREMENTS = 5;
+
+	@Test
+	public void mouseDraggedDoesNotAllocate() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean allocationMXBean = (com.sun.management.ThreadMXBean)threadMXBean;
+		Assume.assumeTrue(allocationMXBean.isThreadAllocatedMemorySupported());
+		allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+
+		MouseGestures mouseGestures = new MouseGestures();
+		mouseGestures.setMouseTrailEnabled(false);
+		MouseGesturesRecognizer recognizer = new MouseGesturesRecognizer(mouseGestures);
+		JPanel source = new JPanel();
+		// a square path, so that moves are recognized and stored too
+		MouseEvent[] mouseEvents = new MouseEvent[EVENT_COUNT];
+		for (int i = 0; i < EVENT_COUNT; i++) {
+			int side = (i / 10) % 4;
+			int step = (i % 10) * 10;
+			int x = side == 0 ? step : side == 1 ? 100 : side == 2 ? 100 - step : 0;
+			int y = side == 0 ? 0 : side == 1 ? step : side == 2 ? 100 : 100 - step;
+			mouseEvents[i] = new MouseEvent(source, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON3_DOWN_MASK,
+											x, y, x, y, 0, false, MouseEvent.BUTTON3);
+		}
+
+		// gestures are cleared between rounds, as on release, so that they do not become invalid
+		for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+			processMouseEvents(recognizer, mouseEvents);
+		}
+		// the JIT may still materialize an eliminated object once, e.g. on a deoptimization, so the
+		// quietest of several measurements is taken; an allocation on the drag path shows in all of them
+		long threadId = Thread.currentThread().getId();
+		long allocated = Long.MAX_VALUE;
+		for (int measurement = 0; measurement < MEASUREMENTS && allocated > 0; measurement++) {
+			long allocatedBefore = allocationMXBean.getThreadAllocatedBytes(threadId);
+			for (int round = 0; round < MEASURED_ROUNDS; round++) {
+				processMouseEvents(recognizer, mouseEvents);
+			}
+			allocated = Math.min(allocated, allocationMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore);
+		}
+		assertEquals("bytes allocated per MOUSE_DRAGGED", 0.0,
+					 (double)allocated / (MEASURED_ROUNDS * EVENT_COUNT), 0.0);
+	}
+
+	private static void processMouseEvents(MouseGesturesRecognizer recognizer, MouseEvent[] mouseEvents) {
+		for (MouseEvent mouseEvent : mouseEvents) {
+			recognizer.processMouseEvent(mouseEvent);
+		}
+		recognizer.clearTemporaryInfo();
+	}
+}
@@ -0,0 +1,185 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the quantizer with the tangent branch chain it replaced (4 and 8 sectors) and with
+ * sectors computed from <code>atan2</code> (4, 8 and 16 sectors).
+ */
+public class SectorDirectionQuantizerTest {
+	private static final int GRID = 400;
+	private static final int[] RADII = {10, 100, 1000, 10000, 100000, 1000000};
+
+	/**
+	 * Movements at multiples of 45 degrees, counterclockwise starting from right.
+	 */
+	private static final int[] DIRECTIONS = {
+		Movements.RIGHT, Movements.UP_RIGHT, Movements.UP, Movements.UP_LEFT,
+		Movements.LEFT, Movements.DOWN_LEFT, Movements.DOWN, Movements.DOWN_RIGHT
+	};
+
+	@Test
+	public void fourSectorsMatchBranchChain() {
+		assertMatchesBranchChain(SectorDirectionQuantizer.FOUR_SECTORS, false);
+	}
+
+	@Test
+	public void eightSectorsMatchBranchChain() {
+		assertMatchesBranchChain(SectorDirectionQuantizer.EIGHT_SECTORS, true);
+	}
+
+	@Test
+	public void allSectorCountsMatchAtan2() {
+		for (SectorDirectionQuantizer quantizer : new SectorDirectionQuantizer[]{
+			SectorDirectionQuantizer.FOUR_SECTORS, SectorDirectionQuantizer.EIGHT_SECTORS,
+			SectorDirectionQuantizer.SIXTEEN_SECTORS}) {
+			for (int deltaX = -GRID; deltaX <= GRID; deltaX++) {
+				for (int deltaY = -GRID; deltaY <= GRID; deltaY++) {
+					if (isOnBoundary(quantizer, deltaX, deltaY)) continue;
+					assertMove(quantizer, getAtan2Move(deltaX, deltaY, quantizer.getSectors()), deltaX, deltaY);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void boundaryAngles() {
+		for (SectorDirectionQuantizer quantizer : new SectorDirectionQuantizer[]{
+			SectorDirectionQuantizer.FOUR_SECTORS, SectorDirectionQuantizer.EIGHT_SECTORS,
+			SectorDirectionQuantizer.SIXTEEN_SECTORS}) {
+			int sectors = quantizer.getSectors();
+			for (int sector = 0; sector < sectors; sector++) {
+				double boundary = Math.toRadians((sector + 0.5) * 360.0 / sectors);
+				for (int radius : RADII) {
+					// the grid points around the boundary ray
+					int x = (int)Math.round(radius * Math.cos(boundary));
+					int y = (int)-Math.round(radius * Math.sin(boundary));
+					for (int deltaX = x - 1; deltaX <= x + 1; deltaX++) {
+						for (int deltaY = y - 1; deltaY <= y + 1; deltaY++) {
+							if (isOnBoundary(quantizer, deltaX, deltaY)) continue;
+							assertMove(quantizer, getAtan2Move(deltaX, deltaY, sectors), deltaX, deltaY);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void fourSectorDiagonalsAreHorizontal() {
+		// the branch chain compared |dx| / |dy| < 1, so exact diagonals went left or right
+		for (int radius : RADII) {
+			assertMove(SectorDirectionQuantizer.FOUR_SECTORS, Movements.RIGHT, radius, radius);
+			assertMove(SectorDirectionQuantizer.FOUR_SECTORS, Movements.RIGHT, radius, -radius);
+			assertMove(SectorDirectionQuantizer.FOUR_SECTORS, Movements.LEFT, -radius, radius);
+			assertMove(SectorDirectionQuantizer.FOUR_SECTORS, Movements.LEFT, -radius, -radius);
+		}
+	}
+
+	@Test
+	public void zeroLengthMoveIsRight() {
+		// the branch chain compared a NaN tangent, which fell through to right
+		assertMove(SectorDirectionQuantizer.FOUR_SECTORS, Movements.RIGHT, 0, 0);
+		assertMove(SectorDirectionQuantizer.EIGHT_SECTORS, Movements.RIGHT, 0, 0);
+		assertMove(SectorDirectionQuantizer.SIXTEEN_SECTORS, Movements.RIGHT, 0, 0);
+		assertEquals(Movements.RIGHT, getBranchChainMove(0, 0, false));
+		assertEquals(Movements.RIGHT, getBranchChainMove(0, 0, true));
+	}
+
+	@Test
+	public void extremeDisplacements() {
+		for (SectorDirectionQuantizer quantizer : new SectorDirectionQuantizer[]{
+			SectorDirectionQuantizer.FOUR_SECTORS, SectorDirectionQuantizer.EIGHT_SECTORS,
+			SectorDirectionQuantizer.SIXTEEN_SECTORS}) {
+			assertMove(quantizer, Movements.LEFT, Integer.MIN_VALUE, 0);
+			assertMove(quantizer, Movements.UP, 0, Integer.MIN_VALUE);
+			assertMove(quantizer, Movements.RIGHT, Integer.MAX_VALUE, 1);
+			assertMove(quantizer, Movements.DOWN, -1, Integer.MAX_VALUE);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unsupportedSectorCount() {
+		new SectorDirectionQuantizer(6);
+	}
+
+	private static void assertMatchesBranchChain(SectorDirectionQuantizer quantizer, boolean diagonalEnabled) {
+		for (int deltaX = -GRID; deltaX <= GRID; deltaX++) {
+			for (int deltaY = -GRID; deltaY <= GRID; deltaY++) {
+				assertMove(quantizer, getBranchChainMove(deltaX, deltaY, diagonalEnabled), deltaX, deltaY);
+			}
+		}
+	}
+
+	private static void assertMove(SectorDirectionQuantizer quantizer, int move, int deltaX, int deltaY) {
+		assertEquals(quantizer.getSectors() + " sectors, " + deltaX + ", " + deltaY,
+					 move, quantizer.getMove(deltaX, deltaY));
+	}
+
+	/**
+	 * Exact diagonals lie on the 4 sector boundaries, the other sector counts have irrational
+	 * boundary tangents, so no grid point but the origin lies on them.
+	 */
+	private static boolean isOnBoundary(SectorDirectionQuantizer quantizer, int deltaX, int deltaY) {
+		return (deltaX == 0 && deltaY == 0) ||
+			   (quantizer.getSectors() == 4 && Math.abs((long)deltaX) == Math.abs((long)deltaY));
+	}
+
+	/**
+	 * The classification MouseGesturesRecognizer did before the quantizer was introduced.
+	 */
+	private static int getBranchChainMove(int deltaX, int deltaY, boolean diagonalEnabled) {
+		float absTangent = (float)Math.abs(deltaX) / (float)Math.abs(deltaY);
+		if (!diagonalEnabled) {
+			if (absTangent < 1) {
+				return deltaY < 0 ? Movements.UP : Movements.DOWN;
+			}
+			return deltaX < 0 ? Movements.LEFT : Movements.RIGHT;
+		}
+		if (absTangent < (float)0.41421357) {
+			return deltaY < 0 ? Movements.UP : Movements.DOWN;
+		}
+		if (absTangent < (float)2.4142137) {
+			if (deltaY < 0) {
+				return deltaX < 0 ? Movements.UP_LEFT : Movements.UP_RIGHT;
+			}
+			return deltaX < 0 ? Movements.DOWN_LEFT : Movements.DOWN_RIGHT;
+		}
+		return deltaX < 0 ? Movements.LEFT : Movements.RIGHT;
+	}
+
+	/**
+	 * Returns the movement of the sector containing the displacement angle. A sector centered
+	 * between a straight and a diagonal direction gives the straight one.
+	 */
+	private static int getAtan2Move(int deltaX, int deltaY, int sectors) {
+		double angle = Math.toDegrees(Math.atan2(-(double)deltaY, deltaX));
+		if (angle < 0) angle += 360;
+		double sectorAngle = 360.0 / sectors;
+		int sector = (int)Math.floor((angle + sectorAngle / 2) / sectorAngle) % sectors;
+		double center = sector * sectorAngle;
+		if (center % 45 != 0) center = Math.round(center / 90) * 90;
+		return DIRECTIONS[(int)Math.round(center / 45) % 8];
+	}
+}
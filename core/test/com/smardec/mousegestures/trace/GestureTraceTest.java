@@ -0,0 +1,190 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.mousegestures.trace;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.assertEquals;
+
+public class GestureTraceTest {
+	// more than the initial mapping of the writer, so that it grows
+	private static final int RECORD_COUNT = 10000;
+
+	private File traceFile;
+	private File truncatedFile;
+
+	@Before
+	public void setUp() throws IOException {
+		traceFile = File.createTempFile("gestures", ".trace");
+		traceFile.delete();
+		truncatedFile = File.createTempFile("truncated", ".trace");
+	}
+
+	@After
+	public void tearDown() {
+		traceFile.delete();
+		truncatedFile.delete();
+	}
+
+	@Test
+	public void recordsRoundTrip() throws IOException {
+		writeRecords(0, RECORD_COUNT);
+		GestureTraceReader reader = new GestureTraceReader(traceFile);
+		try {
+			assertEquals(RECORD_COUNT, reader.getRecordCount());
+			assertRecords(reader, 0, RECORD_COUNT);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void recordsAreAppendedToExistingTrace() throws IOException {
+		writeRecords(0, 10);
+		writeRecords(10, 20);
+		GestureTraceReader reader = new GestureTraceReader(traceFile);
+		try {
+			assertEquals(20, reader.getRecordCount());
+			assertRecords(reader, 0, 20);
+		} finally {
+			reader.close();
+		}
+	}
+
+	@Test
+	public void traceIsReadableBeforeWriterIsClosed() throws IOException {
+		GestureTraceWriter writer = new GestureTraceWriter(traceFile);
+		try {
+			for (int i = 0; i < 3; i++) {
+				appendRecord(writer, i);
+			}
+			GestureTraceReader reader = new GestureTraceReader(traceFile);
+			assertEquals(3, reader.getRecordCount());
+			assertRecords(reader, 0, 3);
+			reader.close();
+		} finally {
+			writer.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void truncatedRecordsAreRejected() throws IOException {
+		writeRecords(0, 10);
+		// the header still counts 10 records, half of the sixth one is left
+		copyTruncated(GestureTrace.getRecordPosition(5) + GestureTrace.RECORD_SIZE / 2);
+		new GestureTraceReader(truncatedFile);
+	}
+
+	@Test(expected = IOException.class)
+	public void truncatedHeaderIsRejected() throws IOException {
+		writeRecords(0, 10);
+		copyTruncated(GestureTrace.HEADER_SIZE - 1);
+		new GestureTraceReader(truncatedFile);
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFileIsRejectedByReader() throws IOException {
+		writeOtherFile();
+		new GestureTraceReader(traceFile);
+	}
+
+	@Test(expected = IOException.class)
+	public void otherFileIsRejectedByWriter() throws IOException {
+		writeOtherFile();
+		new GestureTraceWriter(traceFile);
+	}
+
+	@Test(expected = IOException.class)
+	public void closedWriterRejectsRecords() throws IOException {
+		GestureTraceWriter writer = new GestureTraceWriter(traceFile);
+		writer.close();
+		appendRecord(writer, 0);
+	}
+
+	private void writeRecords(int from, int to) throws IOException {
+		GestureTraceWriter writer = new GestureTraceWriter(traceFile);
+		try {
+			for (int i = from; i < to; i++) {
+				appendRecord(writer, i);
+			}
+			assertEquals(to, writer.getRecordCount());
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static void appendRecord(GestureTraceWriter writer, int i) throws IOException {
+		writer.append(getId(i), InputEvent.BUTTON3_DOWN_MASK, i, -i, 1000000000000L + i, i % 3 - 1);
+	}
+
+	private static int getId(int i) {
+		return i % 2 == 0 ? MouseEvent.MOUSE_DRAGGED : MouseEvent.MOUSE_WHEEL;
+	}
+
+	private static void assertRecords(GestureTraceReader reader, int from, int to) {
+		for (int i = from; i < to; i++) {
+			assertEquals(getId(i), reader.getId(i));
+			assertEquals(InputEvent.BUTTON3_DOWN_MASK, reader.getModifiers(i));
+			assertEquals(i, reader.getX(i));
+			assertEquals(-i, reader.getY(i));
+			assertEquals(1000000000000L + i, reader.getWhen(i));
+			assertEquals(i % 3 - 1, reader.getWheelRotation(i));
+		}
+	}
+
+	/**
+	 * Copies the start of the trace, the trace itself may still be mapped by the closed writer.
+	 */
+	private void copyTruncated(long length) throws IOException {
+		byte[] bytes = new byte[(int)length];
+		RandomAccessFile file = new RandomAccessFile(traceFile, "r");
+		try {
+			file.readFully(bytes);
+		} finally {
+			file.close();
+		}
+		file = new RandomAccessFile(truncatedFile, "rw");
+		try {
+			file.setLength(0);
+			file.write(bytes);
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeOtherFile() throws IOException {
+		RandomAccessFile file = new RandomAccessFile(traceFile, "rw");
+		try {
+			file.writeInt(0xCAFEBABE);
+			file.writeInt(GestureTrace.VERSION);
+			file.writeLong(0);
+		} finally {
+			file.close();
+		}
+	}
+}
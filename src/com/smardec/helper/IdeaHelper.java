@@ -23,16 +23,83 @@ import com.intellij.openapi.wm.WindowManager;
 import com.intellij.openapi.wm.StatusBar;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
+import com.intellij.openapi.project.ProjectManagerAdapter;
+import com.intellij.openapi.project.ProjectManagerListener;
 
 import javax.swing.*;
+import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
+/**
+ * Resolves the frame and status bar of the active project.
+ * <br>Once {@link #install()} is called the result is cached until a project is opened or closed
+ * or another frame is activated, otherwise it is looked up on every call.
+ */
 public class IdeaHelper {
+	private static final String ACTIVE_WINDOW_PROPERTY = "activeWindow";
+
+	private static ProjectManagerListener projectManagerListener;
+	private static PropertyChangeListener activeWindowListener;
+	private static volatile boolean cacheValid;
+	private static Project currentProject;
+	private static JFrame currentFrame;
+	private static StatusBar currentStatusBar;
+
 	public static JFrame getCurrentJFrame() {
-		return WindowManager.getInstance().getFrame(getCurrentProjet());
+		if (!cacheValid) updateCache();
+		return currentFrame;
 	}
 
 	public static StatusBar getCurrentStatusBar() {
-		return WindowManager.getInstance().getStatusBar(getCurrentProjet());
+		if (!cacheValid) updateCache();
+		return currentStatusBar;
+	}
+
+	/**
+	 * Starts caching the active project, its frame and status bar.
+	 */
+	public static void install() {
+		if (projectManagerListener != null) return;
+		projectManagerListener = new ProjectManagerAdapter() {
+			public void projectOpened(Project project) {
+				invalidateCache();
+			}
+
+			public void projectClosed(Project project) {
+				invalidateCache();
+			}
+		};
+		ProjectManager.getInstance().addProjectManagerListener(projectManagerListener);
+		activeWindowListener = new PropertyChangeListener() {
+			public void propertyChange(PropertyChangeEvent event) {
+				// the project stays current while one of its dialogs is active
+				if (event.getNewValue() instanceof Frame) invalidateCache();
+			}
+		};
+		KeyboardFocusManager.getCurrentKeyboardFocusManager().addPropertyChangeListener(ACTIVE_WINDOW_PROPERTY, activeWindowListener);
+	}
+
+	public static void uninstall() {
+		if (projectManagerListener == null) return;
+		ProjectManager.getInstance().removeProjectManagerListener(projectManagerListener);
+		KeyboardFocusManager.getCurrentKeyboardFocusManager().removePropertyChangeListener(ACTIVE_WINDOW_PROPERTY, activeWindowListener);
+		projectManagerListener = null;
+		activeWindowListener = null;
+		invalidateCache();
+	}
+
+	private static void invalidateCache() {
+		cacheValid = false;
+	}
+
+	private static void updateCache() {
+		Project project = getCurrentProjet();
+		WindowManager windowManager = WindowManager.getInstance();
+		currentProject = project;
+		currentFrame = windowManager.getFrame(project);
+		currentStatusBar = windowManager.getStatusBar(project);
+		cacheValid = projectManagerListener != null;
 	}
 
 	private static Project getCurrentProjet() {
@@ -42,6 +109,8 @@ public class IdeaHelper {
 		for (Project project : projects) {
 			if (WindowManager.getInstance().getFrame(project).isActive()) return project;
 		}
+		// keep the project of the last active frame, e.g. while one of its dialogs is active
+		if (currentProject != null && !currentProject.isDisposed()) return currentProject;
 		return projects[0];
 	}
 }
@@ -20,53 +20,245 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 package com.smardec.ideaplugin.ideamousegestures;
 
 import com.intellij.ide.DataManager;
+import com.intellij.ide.plugins.DynamicPluginListener;
+import com.intellij.ide.plugins.IdeaPluginDescriptor;
+import com.intellij.ide.plugins.PluginManager;
 import com.intellij.openapi.actionSystem.*;
+import com.intellij.openapi.application.Application;
+import com.intellij.openapi.application.ApplicationInfo;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.Computable;
+import com.intellij.util.messages.MessageBusConnection;
 
 import javax.swing.*;
+import javax.swing.event.MenuEvent;
+import javax.swing.event.MenuListener;
+import javax.swing.event.PopupMenuEvent;
+import javax.swing.event.PopupMenuListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.geom.GeneralPath;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RecursiveAction;
 
 public class ActionHelper {
+	private static final Logger LOG = Logger.getInstance(ActionHelper.class);
 	private static final Node[] EMPTY_NODE_ARRAY = new Node[0];
 	private static final Icon GROUP_ICON = UIManager.getIcon("Tree.openIcon");
 	private static final String ROOT_NODE_TEXT = "root";
 	private static final Icon UNSELECTED_ARROW_ICON = new ArrowIcon(false);
 	private static final Icon SELECTED_ARROW_ICON = new ArrowIcon(true);
+	private static final String SNAPSHOT_FILE_NAME = "mouseGesturesActions.cache";
+	private static final int SNAPSHOT_MAGIC = 0x4D474154;
+	private static final int SNAPSHOT_VERSION = 2;
+	private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
 
-	private static ActionHelper instance;
+	private static FutureTask<ActionHelper> loader;
+	private static volatile int generationCount;
+	private static MessageBusConnection pluginConnection;
 
+	private AnAction mainMenu;
+	private ActionManager actionManager;
+	private ForkJoinPool pool;
+	private File snapshotFile;
+	private String snapshotKey;
+	private Executor snapshotExecutor;
 	private Node rootNode;
-	private List<Node> actionNodes;
+	private volatile List<Segment> segments;
+	private Map<List<String>, Node> actionNodesByPath;
+	private Map<String, Node> actionNodesById;
+	private ActionSearchIndex searchIndex;
+	// shared by all editors, rebuilt when the tree changes
+	private JPopupMenu actionSelectionPopup;
+	private int actionSelectionPopupGeneration;
+	// the editor, with its dialog, must not be kept reachable by the helper
+	private WeakReference<IActionNodeSelectionListener> actionSelectionListener;
 
+	/**
+	 * Returns the action tree, built by the calling thread unless {@link #startLoading()} already
+	 * started to build it, in which case the call waits for it.
+	 */
 	public static ActionHelper getInstance() {
-		if (instance == null) {
-			instance = new ActionHelper();
+		FutureTask<ActionHelper> task = getLoader();
+		// does nothing if the tree is being built or already built
+		task.run();
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return task.get();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException)cause;
+			if (cause instanceof Error) throw (Error)cause;
+			throw new IllegalStateException(cause);
+		} finally {
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Starts to build the action tree on a background thread.
+	 */
+	public static void startLoading() {
+		FutureTask<ActionHelper> task = getLoader();
+		if (task.isDone()) return;
+		Thread thread = new Thread(task, "Mouse gestures action tree");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Refreshes the action tree, if it is built, whenever a plugin is loaded or unloaded without
+	 * restarting the IDE. Does nothing on IDEs which cannot do so.
+	 */
+	public static void install() {
+		if (pluginConnection != null) return;
+		try {
+			pluginConnection = subscribeToPluginChanges();
+		} catch (NoClassDefFoundError e) {
+			//
+		}
+	}
+
+	public static void uninstall() {
+		if (pluginConnection == null) return;
+		pluginConnection.disconnect();
+		pluginConnection = null;
+	}
+
+	private static MessageBusConnection subscribeToPluginChanges() {
+		MessageBusConnection connection = ApplicationManager.getApplication().getMessageBus().connect();
+		connection.subscribe(DynamicPluginListener.TOPIC, new DynamicPluginListener() {
+			public void pluginLoaded(IdeaPluginDescriptor pluginDescriptor) {
+				refreshLater();
+			}
+
+			public void pluginUnloaded(IdeaPluginDescriptor pluginDescriptor, boolean isUpdate) {
+				refreshLater();
+			}
+		});
+		return connection;
+	}
+
+	private static void refreshLater() {
+		// once the plugin has finished registering or unregistering its actions
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				// bound actions are resolved again even if the main menu did not change
+				if (!isLoaded() || !getInstance().refresh()) generationCount++;
+			}
+		});
+	}
+
+	public static boolean isLoaded() {
+		FutureTask<ActionHelper> task = loader;
+		return task != null && task.isDone();
+	}
+
+	private static synchronized FutureTask<ActionHelper> getLoader() {
+		if (loader == null) {
+			loader = new FutureTask<ActionHelper>(new Callable<ActionHelper>() {
+				public ActionHelper call() {
+					return new ActionHelper();
+				}
+			});
 		}
-		return instance;
+		return loader;
+	}
+
+	/**
+	 * Returns the generation of the action tree, which changes whenever a tree is built
+	 * and whenever a plugin is loaded or unloaded, <code>0</code> before the first change.
+	 */
+	public static int getGeneration() {
+		return generationCount;
+	}
+
+	/**
+	 * Returns the action with the given ID, or with the given path if the ID is unknown. Registered
+	 * IDs are resolved by the action manager, only paths need the action tree.
+	 */
+	public static AnAction findAction(String actionId, String[] actionPath) {
+		if (actionId != null) {
+			AnAction action = ActionManager.getInstance().getAction(actionId);
+			if (action != null) return action;
+		}
+		if (actionPath == null || actionPath.length == 0) return null;
+		Node actionNode = getInstance().findActionNode(actionPath);
+		return actionNode != null ? actionNode.getAction() : null;
+	}
+
+	/**
+	 * Updates the action tree to the registered actions, if it is already built.
+	 * @see #refresh()
+	 */
+	public static void refreshIfLoaded() {
+		if (isLoaded()) getInstance().refresh();
+	}
+
+	/**
+	 * Returns <code>true</code> if an action is registered with the given ID, without building the action tree.
+	 */
+	public static boolean isRegisteredAction(String actionId) {
+		return actionId != null && ActionManager.getInstance().getAction(actionId) != null;
 	}
 
 	private static enum NodeType {GROUP, SIMPLE, SEPARATOR}
 
-	private static class Node {
+	static class Node {
 		private Node parent;
 		private String text;
 		private Icon icon;
+		private boolean iconResolved;
 		private NodeType nodeType;
-		private AnAction action;
+		// actions of unloaded plugins must not be kept reachable
+		private WeakReference<AnAction> action;
 		private Node[] children;
 		private String[] actionPath;
+		private String actionId;
 
 		private Node(NodeType nodeType, Node parent, String text, Icon icon, AnAction action) {
 			this.nodeType = nodeType;
 			this.parent = parent;
 			this.text = text;
 			this.icon = icon;
-			this.action = action;
+			this.iconResolved = icon != null || nodeType != NodeType.SIMPLE;
+			this.action = action != null ? new WeakReference<AnAction>(action) : null;
 			this.children = null;
 			if (this.nodeType == NodeType.SIMPLE) {
 				List<String> strings = new LinkedList<String>();
@@ -81,6 +273,55 @@ public class ActionHelper {
 				actionPath = null;
 			}
 		}
+
+		/**
+		 * Returns the icon, looked up on first use, on the event dispatch thread.
+		 */
+		private Icon getIcon() {
+			if (!iconResolved) {
+				iconResolved = true;
+				AnAction anAction = getAction();
+				if (anAction != null) icon = anAction.getTemplatePresentation().getIcon();
+			}
+			return icon;
+		}
+
+		String[] getActionPath() {
+			return actionPath;
+		}
+
+		private AnAction getAction() {
+			AnAction anAction = action != null ? action.get() : null;
+			if (anAction == null && actionId != null) {
+				anAction = ActionManager.getInstance().getAction(actionId);
+			}
+			return anAction;
+		}
+	}
+
+	/**
+	 * Nodes built from one child of the main menu. A child may give several nodes, since groups
+	 * without text are flattened into their parent.
+	 */
+	private static class Segment {
+		// ID of the main menu child, null if it has none
+		private String actionId;
+		// the main menu child, not known for segments read from the snapshot until they are matched
+		private WeakReference<AnAction> action;
+		private long fingerprint;
+		private Node[] nodes;
+		private List<Node> actionNodes;
+		// read from the snapshot with actions without ID, which only a conversion can resolve
+		private boolean unresolved;
+
+		/**
+		 * Returns <code>true</code> if the segment was built from the given main menu child, by identity,
+		 * or by ID for a segment read from the snapshot.
+		 */
+		private boolean isBuiltFrom(AnAction anAction, String anActionId) {
+			if (action != null) return action.get() == anAction;
+			return actionId == null ? anActionId == null : actionId.equals(anActionId);
+		}
 	}
 
 	private static class ArrowIcon implements Icon {
@@ -123,36 +364,493 @@ public class ActionHelper {
 	}
 
 	private ActionHelper() {
-		actionNodes = new LinkedList<Node>();
+		this(ActionManager.getInstance());
+	}
+
+	private ActionHelper(ActionManager actionManager) {
+		this(actionManager.getAction(IdeActions.GROUP_MAIN_MENU), actionManager, ForkJoinPool.commonPool(),
+			 new File(PathManager.getConfigPath(), SNAPSHOT_FILE_NAME), createSnapshotKey(), new Executor() {
+				public void execute(Runnable command) {
+					ApplicationManager.getApplication().executeOnPooledThread(command);
+				}
+			});
+	}
+
+	/**
+	 * Builds the action tree from the given main menu group, used directly by benchmarks.
+	 */
+	ActionHelper(AnAction anAction) {
+		this(anAction, null, null);
+	}
+
+	/**
+	 * Builds the action tree from the given main menu group, actions are indexed by their ID
+	 * if an action manager is given.
+	 * @param pool pool converting the main menu children in parallel off the event dispatch thread,
+	 * <code>null</code> to convert them in turn
+	 */
+	ActionHelper(AnAction anAction, ActionManager actionManager, ForkJoinPool pool) {
+		this(anAction, actionManager, pool, null, null);
+	}
+
+	/**
+	 * Builds the action tree, or reads it from the snapshot file if the file was written with the
+	 * same key. A tree which is built is written to the snapshot file before returning.
+	 */
+	ActionHelper(AnAction anAction, ActionManager actionManager, ForkJoinPool pool,
+						 File snapshotFile, String snapshotKey) {
+		this(anAction, actionManager, pool, snapshotFile, snapshotKey, null);
+	}
+
+	/**
+	 * Builds the action tree, or reads it from the snapshot file if the file was written with the
+	 * same key. A tree which is built is written to the snapshot file.
+	 * @param snapshotExecutor executor writing the snapshot file, so that refreshes on the event dispatch
+	 * thread do not wait for the disk, <code>null</code> to write it on the refreshing thread
+	 */
+	ActionHelper(AnAction anAction, ActionManager actionManager, ForkJoinPool pool,
+						 File snapshotFile, String snapshotKey, Executor snapshotExecutor) {
+		this.mainMenu = anAction;
+		this.actionManager = actionManager;
+		this.pool = pool;
+		this.snapshotFile = snapshotFile;
+		this.snapshotKey = snapshotKey;
+		this.snapshotExecutor = snapshotExecutor;
 		rootNode = new Node(NodeType.GROUP, null, ROOT_NODE_TEXT, GROUP_ICON, null);
-		AnAction anAction = ActionManager.getInstance().getAction(IdeActions.GROUP_MAIN_MENU);
-		if (anAction instanceof DefaultActionGroup) {
-			AnAction[] mainMenus = ((DefaultActionGroup)anAction).getChildren(null);
-			List<Node> childrenNodes = new LinkedList<Node>();
-			for (AnAction mainMenu : mainMenus) {
-				childrenNodes.addAll(Arrays.asList(convert(rootNode, mainMenu, actionNodes)));
+		rootNode.children = EMPTY_NODE_ARRAY;
+		segments = Collections.emptyList();
+		actionNodesByPath = new HashMap<List<String>, Node>();
+		actionNodesById = new HashMap<String, Node>();
+		if (snapshotFile == null || !readSnapshot() || hasUnresolvedSegments()) {
+			refresh();
+		}
+	}
+
+	/**
+	 * Updates the tree to the actions currently registered. Only the subtrees of main menu
+	 * children which changed are built again, the others are kept with their nodes.
+	 * @return <code>true</code> if the tree changed, the generation is incremented then
+	 */
+	public boolean refresh() {
+		AnAction[] mainMenus = runReadAction(new Computable<AnAction[]>() {
+			public AnAction[] compute() {
+				return mainMenu instanceof DefaultActionGroup ?
+					   ((DefaultActionGroup)mainMenu).getChildren(null) : new AnAction[0];
+			}
+		});
+		final Segment[] updatedSegments = matchSegments(mainMenus);
+		// the event dispatch thread is not blocked waiting for workers, it converts the children itself
+		if (pool != null && mainMenus.length > 1 && !SwingUtilities.isEventDispatchThread()) {
+			pool.invoke(new SegmentTask(mainMenus, updatedSegments, 0, mainMenus.length));
+		} else {
+			for (int i = 0; i < mainMenus.length; i++) {
+				if (updatedSegments[i] == null) updatedSegments[i] = createSegment(mainMenus[i]);
 			}
-			rootNode.children = childrenNodes.toArray(new Node[childrenNodes.size()]);
 		}
+		List<Segment> newSegments = Arrays.asList(updatedSegments);
+		if (newSegments.equals(segments)) return false;
+		for (Segment segment : segments) {
+			if (!newSegments.contains(segment)) unindex(segment.actionNodes);
+		}
+		setSegments(newSegments);
+		if (snapshotFile != null) writeSnapshotLater();
+		return true;
 	}
 
-	public boolean isValidAction(String[] actionPath) {
-		if (actionPath == null || actionPath.length == 0) return false;
-		for (Node actionNode : actionNodes) {
-			if (Arrays.equals(actionNode.actionPath, actionPath)) return true;
+	private boolean hasUnresolvedSegments() {
+		for (Segment segment : segments) {
+			if (segment.unresolved) return true;
 		}
 		return false;
 	}
 
+	private void setSegments(List<Segment> newSegments) {
+		List<Node> childrenNodes = new ArrayList<Node>();
+		List<Node> actionNodes = new ArrayList<Node>();
+		for (Segment segment : newSegments) {
+			childrenNodes.addAll(Arrays.asList(segment.nodes));
+			actionNodes.addAll(segment.actionNodes);
+			index(segment.actionNodes);
+		}
+		rootNode.children = childrenNodes.toArray(new Node[childrenNodes.size()]);
+		searchIndex = new ActionSearchIndex(actionNodes);
+		segments = newSegments;
+		generationCount++;
+	}
+
+	/**
+	 * Returns the current segments which can be kept for the given main menu children, <code>null</code>
+	 * for the children to convert. A segment is kept for a child it was built from, preferably at the
+	 * same position, if the subtree below still has the same fingerprint. Each segment is kept once,
+	 * so duplicate children get their own nodes.
+	 */
+	private Segment[] matchSegments(final AnAction[] mainMenus) {
+		return runReadAction(new Computable<Segment[]>() {
+			public Segment[] compute() {
+				Segment[] oldSegments = segments.toArray(new Segment[segments.size()]);
+				boolean[] kept = new boolean[oldSegments.length];
+				Segment[] matchedSegments = new Segment[mainMenus.length];
+				for (int i = 0; i < mainMenus.length; i++) {
+					matchedSegments[i] = matchSegment(mainMenus[i], i, oldSegments, kept);
+				}
+				return matchedSegments;
+			}
+		});
+	}
+
+	private Segment matchSegment(AnAction action, int position, Segment[] oldSegments, boolean[] kept) {
+		if (action == null) return null;
+		String actionId = actionManager != null ? actionManager.getId(action) : null;
+		long fingerprint = 0;
+		boolean fingerprinted = false;
+		for (int i = -1; i < oldSegments.length; i++) {
+			int index = i < 0 ? position : i;
+			if (index >= oldSegments.length || (i >= 0 && index == position)) continue;
+			Segment segment = oldSegments[index];
+			if (kept[index] || segment.unresolved || !segment.isBuiltFrom(action, actionId)) continue;
+			// only children which may be kept are fingerprinted, a group may have gained or lost actions
+			if (!fingerprinted) {
+				fingerprint = fingerprint(action);
+				fingerprinted = true;
+			}
+			if (segment.fingerprint != fingerprint) continue;
+			kept[index] = true;
+			if (segment.action == null) segment.action = new WeakReference<AnAction>(action);
+			return segment;
+		}
+		return null;
+	}
+
+	private static <T> T runReadAction(Computable<T> computable) {
+		Application application = ApplicationManager.getApplication();
+		// without an application, e.g. in benchmarks, there is no lock to take
+		return application != null ? application.runReadAction(computable) : computable.compute();
+	}
+
+	/**
+	 * Updates the segments of a range of main menu children, the children are independent
+	 * subtrees and are converted in parallel.
+	 */
+	private class SegmentTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private AnAction[] mainMenus;
+		private Segment[] updatedSegments;
+		private int from;
+		private int to;
+
+		private SegmentTask(AnAction[] mainMenus, Segment[] updatedSegments, int from, int to) {
+			this.mainMenus = mainMenus;
+			this.updatedSegments = updatedSegments;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new SegmentTask(mainMenus, updatedSegments, from, middle),
+						  new SegmentTask(mainMenus, updatedSegments, middle, to));
+				return;
+			}
+			if (updatedSegments[from] == null) updatedSegments[from] = createSegment(mainMenus[from]);
+		}
+	}
+
+	/**
+	 * Converts a main menu child. Reads the actions in a read action, so may be called on any thread.
+	 */
+	private Segment createSegment(final AnAction action) {
+		return runReadAction(new Computable<Segment>() {
+			public Segment compute() {
+				Segment segment = new Segment();
+				segment.actionId = actionManager != null && action != null ? actionManager.getId(action) : null;
+				segment.action = new WeakReference<AnAction>(action);
+				segment.fingerprint = fingerprint(action);
+				segment.actionNodes = new ArrayList<Node>();
+				List<Node> nodes = new ArrayList<Node>();
+				convert(rootNode, action, nodes, segment.actionNodes);
+				segment.nodes = nodes.toArray(new Node[nodes.size()]);
+				if (actionManager != null) {
+					for (Node actionNode : segment.actionNodes) {
+						actionNode.actionId = actionManager.getId(actionNode.getAction());
+					}
+				}
+				return segment;
+			}
+		});
+	}
+
+	/**
+	 * Returns a hash of the action IDs, or classes of actions without ID, texts and structure below
+	 * the given action. It does not depend on the session, so can be compared with the snapshot.
+	 */
+	private long fingerprint(AnAction action) {
+		if (action == null) return 0;
+		String actionId = actionManager != null ? actionManager.getId(action) : null;
+		long fingerprint = hash(FNV_OFFSET_BASIS, actionId != null ? actionId : action.getClass().getName());
+		Presentation presentation = action.getTemplatePresentation();
+		fingerprint = hash(fingerprint, presentation != null ? presentation.getText() : null);
+		if (action instanceof DefaultActionGroup) {
+			for (AnAction child : ((DefaultActionGroup)action).getChildren(null)) {
+				fingerprint = fingerprint * 1000003 + fingerprint(child);
+			}
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * 64 bit FNV-1a hash of the string chars, continuing the given hash.
+	 */
+	private static long hash(long hash, String string) {
+		if (string == null) return hash * FNV_PRIME;
+		for (int i = 0; i < string.length(); i++) {
+			hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+		}
+		return hash;
+	}
+
+	private static String createSnapshotKey() {
+		StringBuilder key = new StringBuilder(ApplicationInfo.getInstance().getBuildNumber());
+		// menu texts depend on the language
+		key.append('|').append(Locale.getDefault());
+		List<String> plugins = new ArrayList<String>();
+		for (IdeaPluginDescriptor plugin : PluginManager.getPlugins()) {
+			plugins.add(plugin.getPluginId().getIdString() + ':' + plugin.getVersion());
+		}
+		Collections.sort(plugins);
+		for (String plugin : plugins) {
+			key.append('|').append(plugin);
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Reads the tree from the snapshot file with a single read of the file. The file is not mapped,
+	 * a mapping would keep it from being replaced on Windows until the buffer is collected.
+	 * @return <code>false</code> if there is no snapshot or it was written with another key
+	 */
+	private boolean readSnapshot() {
+		if (!snapshotFile.isFile()) return false;
+		try {
+			ByteBuffer buffer;
+			RandomAccessFile file = new RandomAccessFile(snapshotFile, "r");
+			try {
+				FileChannel channel = file.getChannel();
+				long size = channel.size();
+				if (size > Integer.MAX_VALUE) return false;
+				buffer = ByteBuffer.allocate((int)size);
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) throw new EOFException();
+				}
+				buffer.flip();
+			} finally {
+				file.close();
+			}
+			if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) return false;
+			if (!snapshotKey.equals(readString(buffer))) return false;
+			int segmentCount = readLength(buffer, 1);
+			List<Segment> newSegments = new ArrayList<Segment>(segmentCount);
+			for (int i = 0; i < segmentCount; i++) {
+				Segment segment = new Segment();
+				segment.fingerprint = buffer.getLong();
+				String actionId = readString(buffer);
+				segment.actionId = actionId.length() > 0 ? actionId : null;
+				segment.actionNodes = new ArrayList<Node>();
+				int nodeCount = readLength(buffer, 1);
+				segment.nodes = new Node[nodeCount];
+				for (int j = 0; j < nodeCount; j++) {
+					segment.nodes[j] = readNode(buffer, rootNode, segment.actionNodes);
+				}
+				for (Node actionNode : segment.actionNodes) {
+					if (actionNode.actionId == null) segment.unresolved = true;
+				}
+				newSegments.add(segment);
+			}
+			setSegments(newSegments);
+			return true;
+		} catch (IOException e) {
+			return false;
+		} catch (RuntimeException e) {
+			// a corrupt snapshot, the tree is built instead
+			return false;
+		}
+	}
+
+	private static Node readNode(ByteBuffer buffer, Node parent, List<Node> actionNodes) {
+		NodeType nodeType = NodeType.values()[buffer.get()];
+		switch (nodeType) {
+			case SEPARATOR:
+				return new Node(NodeType.SEPARATOR, parent, null, null, null);
+			case SIMPLE: {
+				Node actionNode = new Node(NodeType.SIMPLE, parent, readString(buffer), null, null);
+				String actionId = readString(buffer);
+				actionNode.actionId = actionId.length() > 0 ? actionId : null;
+				actionNodes.add(actionNode);
+				return actionNode;
+			}
+			default: {
+				Node groupNode = new Node(NodeType.GROUP, parent, readString(buffer), GROUP_ICON, null);
+				groupNode.children = new Node[readLength(buffer, 1)];
+				for (int i = 0; i < groupNode.children.length; i++) {
+					groupNode.children[i] = readNode(buffer, groupNode, actionNodes);
+				}
+				return groupNode;
+			}
+		}
+	}
+
+	/**
+	 * Reads a count of elements taking at least the given number of bytes each, checked against the
+	 * remaining bytes so that a corrupt snapshot does not make huge arrays.
+	 */
+	private static int readLength(ByteBuffer buffer, int elementSize) {
+		int length = buffer.getInt();
+		if (length < 0 || length > buffer.remaining() / elementSize) {
+			throw new BufferUnderflowException();
+		}
+		return length;
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		char[] chars = new char[readLength(buffer, 2)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = buffer.getChar();
+		}
+		return new String(chars);
+	}
+
+	private void writeSnapshotLater() {
+		final List<Segment> snapshotSegments = segments;
+		Runnable writer = new Runnable() {
+			public void run() {
+				writeSnapshot(snapshotSegments);
+			}
+		};
+		if (snapshotExecutor != null) {
+			snapshotExecutor.execute(writer);
+		} else {
+			writer.run();
+		}
+	}
+
+	/**
+	 * Writes the given segments to the snapshot file, unless the tree has changed again since,
+	 * the write for the later segments is pending then.
+	 */
+	private synchronized void writeSnapshot(List<Segment> snapshotSegments) {
+		if (snapshotSegments != segments) return;
+		File tempFile = new File(snapshotFile.getPath() + ".tmp");
+		try {
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			try {
+				output.writeInt(SNAPSHOT_MAGIC);
+				output.writeInt(SNAPSHOT_VERSION);
+				writeString(output, snapshotKey);
+				output.writeInt(snapshotSegments.size());
+				for (Segment segment : snapshotSegments) {
+					output.writeLong(segment.fingerprint);
+					writeString(output, segment.actionId != null ? segment.actionId : "");
+					output.writeInt(segment.nodes.length);
+					for (Node node : segment.nodes) {
+						writeNode(output, node);
+					}
+				}
+			} finally {
+				output.close();
+			}
+			// readers never see a partly written snapshot
+			try {
+				Files.move(tempFile.toPath(), snapshotFile.toPath(),
+						   StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tempFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			LOG.warn("Cannot write the action tree snapshot " + snapshotFile, e);
+			tempFile.delete();
+		}
+	}
+
+	private static void writeNode(DataOutputStream output, Node node) throws IOException {
+		output.writeByte(node.nodeType.ordinal());
+		if (node.nodeType == NodeType.SEPARATOR) return;
+		writeString(output, node.text);
+		if (node.nodeType == NodeType.SIMPLE) {
+			writeString(output, node.actionId != null ? node.actionId : "");
+		} else {
+			output.writeInt(node.children.length);
+			for (Node child : node.children) {
+				writeNode(output, child);
+			}
+		}
+	}
+
+	private static void writeString(DataOutputStream output, String string) throws IOException {
+		output.writeInt(string.length());
+		output.writeChars(string);
+	}
+
+	private void index(List<Node> actionNodes) {
+		for (Node actionNode : actionNodes) {
+			// the first node of a path or ID wins, as with the former linear search
+			List<String> pathKey = Arrays.asList(actionNode.actionPath);
+			if (!actionNodesByPath.containsKey(pathKey)) {
+				actionNodesByPath.put(pathKey, actionNode);
+			}
+			if (actionNode.actionId != null && !actionNodesById.containsKey(actionNode.actionId)) {
+				actionNodesById.put(actionNode.actionId, actionNode);
+			}
+		}
+	}
+
+	private void unindex(List<Node> actionNodes) {
+		for (Node actionNode : actionNodes) {
+			List<String> pathKey = Arrays.asList(actionNode.actionPath);
+			if (actionNodesByPath.get(pathKey) == actionNode) {
+				actionNodesByPath.remove(pathKey);
+			}
+			if (actionNode.actionId != null && actionNodesById.get(actionNode.actionId) == actionNode) {
+				actionNodesById.remove(actionNode.actionId);
+			}
+		}
+	}
+
+	public boolean isValidAction(String[] actionPath) {
+		return findActionNode(actionPath) != null;
+	}
+
+	/**
+	 * Returns the ID of the action with the given path, <code>null</code> if the action
+	 * is unknown or not registered.
+	 */
+	public String getActionId(String[] actionPath) {
+		Node actionNode = findActionNode(actionPath);
+		return actionNode != null ? actionNode.actionId : null;
+	}
+
+	/**
+	 * Returns the current path of the action with the given ID, <code>null</code> if the action is unknown.
+	 */
+	public String[] getActionPath(String actionId) {
+		Node actionNode = findActionNodeById(actionId);
+		return actionNode != null ? actionNode.actionPath : null;
+	}
+
 	public void invoke(String[] actionPath) {
 		Node actionNode = findActionNode(actionPath);
 		if (actionNode == null || actionNode.nodeType != NodeType.SIMPLE) return;
-		actionNode.action.actionPerformed(new AnActionEvent(null,
-												 DataManager.getInstance().getDataContext(),
-												 ActionPlaces.UNKNOWN,
-												 actionNode.action.getTemplatePresentation(),
-												 com.intellij.openapi.actionSystem.ActionManager.getInstance(),
-												 0));
+		AnAction action = actionNode.getAction();
+		if (action != null) invoke(action);
+	}
+
+	public static void invoke(AnAction action) {
+		action.actionPerformed(new AnActionEvent(null,
+								   DataManager.getInstance().getDataContext(),
+								   ActionPlaces.UNKNOWN,
+								   action.getTemplatePresentation(),
+								   com.intellij.openapi.actionSystem.ActionManager.getInstance(),
+								   0));
 	}
 
 	public JPopupMenu createActionSelectionPopup(final IActionNodeSelectionListener selectionListener) {
@@ -169,6 +867,43 @@ public class ActionHelper {
 		return actionSelectionPopupMenu;
 	}
 
+	/**
+	 * Returns the action selection popup, reporting to the given listener. Unlike
+	 * {@link #createActionSelectionPopup(IActionNodeSelectionListener)} the submenus are filled when
+	 * first expanded, and the popup is reused until the action tree changes.
+	 */
+	public JPopupMenu getActionSelectionPopup(IActionNodeSelectionListener selectionListener) {
+		actionSelectionListener = new WeakReference<IActionNodeSelectionListener>(selectionListener);
+		if (actionSelectionPopup != null && actionSelectionPopupGeneration == generationCount) {
+			return actionSelectionPopup;
+		}
+		actionSelectionPopupGeneration = generationCount;
+		IActionNodeSelectionListener delegatingListener = new IActionNodeSelectionListener() {
+			public void onSelect(String[] selectedActionPath) {
+				IActionNodeSelectionListener selectionListener = actionSelectionListener.get();
+				if (selectionListener != null) selectionListener.onSelect(selectedActionPath);
+			}
+		};
+		final JPopupMenu popupMenu = new JPopupMenu();
+		popupMenu.addPopupMenuListener(new PopupMenuListener() {
+			public void popupMenuWillBecomeInvisible(PopupMenuEvent e) {
+				// the invoker is dropped once the popup is hidden, it belongs to the editor dialog
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						if (!popupMenu.isVisible()) popupMenu.setInvoker(null);
+					}
+				});
+			}
+
+			public void popupMenuWillBecomeVisible(PopupMenuEvent e) {}
+
+			public void popupMenuCanceled(PopupMenuEvent e) {}
+		});
+		actionSelectionPopup = popupMenu;
+		addLazyMenuItems(actionSelectionPopup, rootNode.children, delegatingListener);
+		return actionSelectionPopup;
+	}
+
 	public void constructView(JPanel panel, String[] actionPath, Color foreGround, boolean selected) {
 		panel.removeAll();
 		Node actionNode = findActionNode(actionPath);
@@ -197,26 +932,63 @@ public class ActionHelper {
 		}
 	}
 
-	private Node findActionNode(String[] actionPath) {
-		if (actionPath == null || actionPath.length == 0) return null;
-		for (Node actionNode : actionNodes) {
-			if (Arrays.equals(actionNode.actionPath, actionPath)) return actionNode;
+	/**
+	 * Returns the icons of the groups of the action and of the action itself, in path order,
+	 * <code>null</code> if the path is not in the tree.
+	 */
+	public Icon[] getActionPathIcons(String[] actionPath) {
+		Node actionNode = findActionNode(actionPath);
+		if (actionNode == null) return null;
+		Icon[] icons = new Icon[actionPath.length];
+		for (int i = icons.length - 1; i >= 0; i--) {
+			icons[i] = actionNode.getIcon();
+			actionNode = actionNode.parent;
 		}
-		return null;
+		return icons;
+	}
+
+	/**
+	 * Returns the arrow shown between the texts of an action path.
+	 */
+	public static Icon getArrowIcon(boolean selected) {
+		return selected ? SELECTED_ARROW_ICON : UNSELECTED_ARROW_ICON;
+	}
+
+	/**
+	 * Returns the paths of the actions whose path has words starting with every word of the query,
+	 * in menu order.
+	 * @see ActionSearchIndex
+	 */
+	public List<String[]> searchActions(String query, int maxResults) {
+		return searchIndex.search(query, maxResults);
+	}
+
+	Node[] getMainMenuNodes() {
+		return rootNode.children.clone();
+	}
+
+	Node findActionNode(String[] actionPath) {
+		if (actionPath == null || actionPath.length == 0) return null;
+		return actionNodesByPath.get(Arrays.asList(actionPath));
+	}
+
+	Node findActionNodeById(String actionId) {
+		if (actionId == null) return null;
+		return actionNodesById.get(actionId);
 	}
 
 	private static JMenuItem createMenuItem(final Node actionNode,
 											final IActionNodeSelectionListener selectionListener) {
 		switch (actionNode.nodeType) {
 			case SIMPLE: {
-				return new JMenuItem(new AbstractAction(actionNode.text, actionNode.icon) {
+				return new JMenuItem(new AbstractAction(actionNode.text, actionNode.getIcon()) {
 					public void actionPerformed(ActionEvent e) {
 						selectionListener.onSelect(actionNode.actionPath);
 					}
 				});
 			}
 			case GROUP: {
-				JMenu menu = new JMenu(new AbstractAction(actionNode.text, actionNode.icon) {
+				JMenu menu = new JMenu(new AbstractAction(actionNode.text, actionNode.getIcon()) {
 					public void actionPerformed(ActionEvent e) {}
 				});
 				Node[] children = actionNode.children;
@@ -234,43 +1006,76 @@ public class ActionHelper {
 		}
 	}
 
-	private static Node[] convert(Node parent, AnAction action, List<Node> actionNodes) {
-		if (action instanceof Separator) return new Node[]{new Node(NodeType.SEPARATOR, parent, null, null, null)};
-		if (action instanceof DefaultActionGroup) {
+	private static void addLazyMenuItems(JComponent menu, Node[] children,
+										 IActionNodeSelectionListener selectionListener) {
+		for (Node child : children) {
+			if (child.nodeType == NodeType.SEPARATOR) {
+				menu.add(new JPopupMenu.Separator());
+			} else {
+				menu.add(createLazyMenuItem(child, selectionListener));
+			}
+		}
+	}
+
+	private static JMenuItem createLazyMenuItem(final Node actionNode,
+												final IActionNodeSelectionListener selectionListener) {
+		if (actionNode.nodeType != NodeType.GROUP) return createMenuItem(actionNode, selectionListener);
+		final JMenu menu = new JMenu(new AbstractAction(actionNode.text, actionNode.getIcon()) {
+			public void actionPerformed(ActionEvent e) {}
+		});
+		menu.addMenuListener(new MenuListener() {
+			public void menuSelected(MenuEvent e) {
+				// filled once, when first expanded
+				menu.removeMenuListener(this);
+				addLazyMenuItems(menu.getPopupMenu(), actionNode.children, selectionListener);
+			}
+
+			public void menuDeselected(MenuEvent e) {}
+
+			public void menuCanceled(MenuEvent e) {}
+		});
+		return menu;
+	}
+
+	/**
+	 * Adds the nodes of the action to the given list, and the simple ones to the action nodes too.
+	 */
+	private static void convert(Node parent, AnAction action, List<Node> nodes, List<Node> actionNodes) {
+		if (action instanceof Separator) {
+			nodes.add(new Node(NodeType.SEPARATOR, parent, null, null, null));
+		} else if (action instanceof DefaultActionGroup) {
 			DefaultActionGroup defaultActionGroup = (DefaultActionGroup)action;
 			Presentation presentation = defaultActionGroup.getTemplatePresentation();
 			String text = presentation.getText();
+			AnAction[] childrenActions = defaultActionGroup.getChildren(null);
 			if (text == null) {
-				List<Node> childrenNodes = new LinkedList<Node>();
-				AnAction[] childrenActions = defaultActionGroup.getChildren(null);
 				for (AnAction childAction : childrenActions) {
-					childrenNodes.addAll(Arrays.asList(convert(parent, childAction, actionNodes)));
+					convert(parent, childAction, nodes, actionNodes);
 				}
-				return childrenNodes.toArray(new Node[childrenNodes.size()]);
 			} else {
 				Node groupActionNode = new Node(NodeType.GROUP, parent, text, GROUP_ICON, null);
-				List<Node> childrenNodes = new LinkedList<Node>();
-				AnAction[] childrenActions = defaultActionGroup.getChildren(null);
+				List<Node> childrenNodes = new ArrayList<Node>(childrenActions.length);
 				for (AnAction childAction : childrenActions) {
-					childrenNodes.addAll(Arrays.asList(convert(groupActionNode, childAction, actionNodes)));
+					convert(groupActionNode, childAction, childrenNodes, actionNodes);
 				}
 				groupActionNode.children = childrenNodes.toArray(new Node[childrenNodes.size()]);
-				return new Node[]{groupActionNode};
+				nodes.add(groupActionNode);
 			}
 		} else {
-			if (action == null) return EMPTY_NODE_ARRAY;
+			if (action == null) return;
 			Presentation presentation = action.getTemplatePresentation();
-			if (presentation == null) return EMPTY_NODE_ARRAY;
+			if (presentation == null) return;
 			String text = presentation.getText();
-			if (text == null) return EMPTY_NODE_ARRAY;
-			Node actionNode = new Node(NodeType.SIMPLE, parent, text, presentation.getIcon(), action);
+			if (text == null) return;
+			// the icon is looked up when first shown, on the event dispatch thread
+			Node actionNode = new Node(NodeType.SIMPLE, parent, text, null, action);
 			actionNodes.add(actionNode);
-			return new Node[]{actionNode};
+			nodes.add(actionNode);
 		}
 	}
 
 	private static JLabel getLabel(Node node, Color foreGround) {
-		JLabel label = new JLabel(node.text, node.icon, JLabel.LEADING);
+		JLabel label = new JLabel(node.text, node.getIcon(), JLabel.LEADING);
 		label.setFont(label.getFont().deriveFont(12f));
 		label.setForeground(foreGround);
 		return label;
@@ -0,0 +1,128 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Index of action nodes by the words of their path. Words are kept sorted, so the words starting
+ * with a query word are a range found by binary search, and a query matches the nodes found by all
+ * of its words.
+ */
+class ActionSearchIndex {
+	private ActionHelper.Node[] actionNodes;
+	private String[] words;
+	// nodes of each word, by position in actionNodes
+	private BitSet[] wordNodes;
+
+	ActionSearchIndex(List<ActionHelper.Node> actionNodes) {
+		this.actionNodes = actionNodes.toArray(new ActionHelper.Node[actionNodes.size()]);
+		Map<String, BitSet> nodesByWord = new HashMap<String, BitSet>();
+		for (int i = 0; i < this.actionNodes.length; i++) {
+			String[] actionPath = this.actionNodes[i].getActionPath();
+			for (String text : actionPath) {
+				for (String word : split(text)) {
+					BitSet nodes = nodesByWord.get(word);
+					if (nodes == null) {
+						nodes = new BitSet(this.actionNodes.length);
+						nodesByWord.put(word, nodes);
+					}
+					nodes.set(i);
+				}
+			}
+		}
+		words = nodesByWord.keySet().toArray(new String[nodesByWord.size()]);
+		Arrays.sort(words);
+		wordNodes = new BitSet[words.length];
+		for (int i = 0; i < words.length; i++) {
+			wordNodes[i] = nodesByWord.get(words[i]);
+		}
+	}
+
+	/**
+	 * Returns the paths of the actions having, for every word of the query, a word in their path
+	 * starting with it. Paths are in menu order, at most <code>maxResults</code> of them.
+	 */
+	List<String[]> search(String query, int maxResults) {
+		List<String> queryWords = split(query);
+		List<String[]> actionPaths = new ArrayList<String[]>();
+		if (queryWords.isEmpty()) return actionPaths;
+		BitSet matches = null;
+		for (String queryWord : queryWords) {
+			BitSet wordMatches = new BitSet(actionNodes.length);
+			for (int i = lowerBound(queryWord); i < words.length && words[i].startsWith(queryWord); i++) {
+				wordMatches.or(wordNodes[i]);
+			}
+			if (matches == null) {
+				matches = wordMatches;
+			} else {
+				matches.and(wordMatches);
+			}
+			if (matches.isEmpty()) return actionPaths;
+		}
+		for (int i = matches.nextSetBit(0); i >= 0 && actionPaths.size() < maxResults; i = matches.nextSetBit(i + 1)) {
+			actionPaths.add(actionNodes[i].getActionPath());
+		}
+		return actionPaths;
+	}
+
+	/**
+	 * Returns the position of the first word not less than the given one.
+	 */
+	private int lowerBound(String word) {
+		int low = 0;
+		int high = words.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (words[middle].compareTo(word) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Splits the text into lower case words of letters and digits.
+	 */
+	private static List<String> split(String text) {
+		List<String> words = new ArrayList<String>();
+		if (text == null) return words;
+		String lowerCaseText = text.toLowerCase(Locale.ENGLISH);
+		int start = -1;
+		for (int i = 0; i <= lowerCaseText.length(); i++) {
+			boolean wordChar = i < lowerCaseText.length() && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+			if (wordChar && start == -1) {
+				start = i;
+			} else if (!wordChar && start != -1) {
+				words.add(lowerCaseText.substring(start, i));
+				start = -1;
+			}
+		}
+		return words;
+	}
+}
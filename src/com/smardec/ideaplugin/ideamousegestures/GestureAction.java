@@ -19,12 +19,20 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.ideaplugin.ideamousegestures;
 
+import com.smardec.ideaplugin.ideamousegestures.lang.LangUtils;
+import com.smardec.mousegestures.GestureCodes;
+
 import java.util.Arrays;
 
 public class GestureAction implements Comparable<GestureAction> {
 	private static final String SEPARATOR = " -> ";
-	private String gesture;
+	private long gesture;
 	private String[] actionPath;
+	private String actionId;
+
+	public static String formatDisplayGesture(long gesture) {
+		return formatDisplayGesture(GestureCodes.decode(gesture, LangUtils.getMovements()));
+	}
 
 	public static String formatDisplayGesture(String gesture) {
 		String displayString = "";
@@ -37,13 +45,21 @@ public class GestureAction implements Comparable<GestureAction> {
 		return displayString;
 	}
 
-	public GestureAction(String gesture, String[] actionPath) {
+	public GestureAction(long gesture, String[] actionPath) {
+		this(gesture, actionPath, null);
+	}
+
+	/**
+	 * @param actionId ID of the action in the action manager, which stays valid if menu texts change
+	 */
+	public GestureAction(long gesture, String[] actionPath, String actionId) {
 		this.gesture = gesture;
 		this.actionPath = actionPath;
+		this.actionId = actionId;
 	}
 
 	public int compareTo(GestureAction that) {
-		int gestureCompare = this.gesture.compareTo(that.gesture);
+		int gestureCompare = GestureCodes.compare(this.gesture, that.gesture);
 		if (gestureCompare < 0) return -1;
 		if (gestureCompare > 0) return 1;
 		for (int i = 0; i < this.actionPath.length && i < that.actionPath.length; i++) {
@@ -61,25 +77,42 @@ public class GestureAction implements Comparable<GestureAction> {
 		if (o == null || getClass() != o.getClass()) return false;
 		GestureAction that = (GestureAction)o;
 		if (!Arrays.equals(actionPath, that.actionPath)) return false;
-		if (!gesture.equals(that.gesture)) return false;
+		if (gesture != that.gesture) return false;
 		return true;
 	}
 
 	public int hashCode() {
 		int result;
-		result = gesture.hashCode();
+		result = (int)(gesture ^ (gesture >>> 32));
 		result = 31 * result + Arrays.hashCode(actionPath);
 		return result;
 	}
 
-	public String getGesture() {
+	/**
+	 * Returns the gesture packed as described in {@link GestureCodes}.
+	 */
+	public long getGesture() {
 		return gesture;
 	}
 
+	/**
+	 * Returns the gesture represented with the movements of the current language.
+	 */
+	public String getGestureText() {
+		return GestureCodes.decode(gesture, LangUtils.getMovements());
+	}
+
 	public String[] getActionPath() {
 		return actionPath;
 	}
 
+	/**
+	 * Returns the ID of the action, <code>null</code> if unknown.
+	 */
+	public String getActionId() {
+		return actionId;
+	}
+
 	public String getDisplayString() {
 		String result = formatDisplayGesture(gesture);
 		result += " (";
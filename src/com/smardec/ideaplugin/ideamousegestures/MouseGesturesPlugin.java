@@ -19,6 +19,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.ideaplugin.ideamousegestures;
 
+import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.actionSystem.DataProvider;
 import com.intellij.openapi.components.ApplicationComponent;
 import com.intellij.openapi.components.PersistentStateComponent;
@@ -30,32 +31,44 @@ import com.intellij.openapi.wm.StatusBar;
 import com.smardec.helper.IdeaHelper;
 import com.smardec.ideaplugin.ideamousegestures.lang.LangUtils;
 import com.smardec.ideaplugin.ideamousegestures.settings.Settings;
+import com.smardec.mousegestures.MouseEventInterceptor;
 import com.smardec.mousegestures.MouseGestures;
 import com.smardec.mousegestures.MouseGesturesListener;
-import com.smardec.mousegestures.Movements;
+import com.smardec.mousegestures.TrailFrameProvider;
+import com.smardec.mousegestures.trace.GestureTraceWriter;
 import org.jdom.Element;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.awt.*;
-import java.awt.event.AWTEventListener;
+import java.awt.event.InputEvent;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.io.IOException;
 
 @State(name = "MouseGestures", storages = { @Storage(id = "MouseGestures", file = "$APP_CONFIG$/mouseGestures.xml") })
 public class MouseGesturesPlugin implements ApplicationComponent
 		, PersistentStateComponent<Settings>
 {
+	/**
+	 * System property giving the file the gesture input stream is recorded to, for bug reports.
+	 */
+	private static final String TRACE_FILE_PROPERTY = "mousegestures.trace.file";
+	/**
+	 * System property enabling recognition off the event dispatch thread.
+	 */
+	private static final String PIPELINE_PROPERTY = "mousegestures.pipeline";
+
 	private Settings theSettings;
 	private MouseGestures theMouseGestures;
 	private MouseGesturesListener theMouseGesturesListener;
-	private AWTEventListener thAwtEventListener;
 
 	public MouseGesturesPlugin() {
 		theSettings = new Settings();
 		theMouseGestures = createMouseGestures();
 		theMouseGesturesListener = new MouseGesturesListener() {
-			public void gestureMovementRecognized(String currentGesture) {
+			public void gestureMovementRecognized(long currentGesture) {
 				StatusBar statusBar = IdeaHelper.getCurrentStatusBar();
 				if (statusBar != null) {
 					GestureAction gestureAction = theSettings.getAction(currentGesture);
@@ -70,15 +83,22 @@ public class MouseGesturesPlugin implements ApplicationComponent
 				}
 			}
 
-			public void processGesture(String gesture) {
+			public void processGesture(long gesture) {
 				try {
-					GestureAction gestureAction = theSettings.getAction(gesture);
-					if (gestureAction != null) {
-						ActionHelper.getInstance().invoke(gestureAction.getActionPath());
+					AnAction action = theSettings.getBoundAction(gesture);
+					if (action != null) {
+						ActionHelper.invoke(action);
 					}
 					StatusBar statusBar = IdeaHelper.getCurrentStatusBar();
 					if (statusBar != null) {
-						statusBar.setInfo("");
+						GestureAction gestureAction = theSettings.getAction(gesture);
+						if (action == null && gestureAction != null) {
+							// the action is not registered, its plugin may be disabled or unloaded
+							statusBar.setInfo(gestureAction.getDisplayString() + " " +
+											  LangUtils.get(LangUtils.UNAVAILABLE_ACTION));
+						} else {
+							statusBar.setInfo("");
+						}
 					}
 				} catch (Exception e) {
 					//
@@ -93,16 +113,23 @@ public class MouseGesturesPlugin implements ApplicationComponent
 	}
 
 	public void initComponent() {
+		IdeaHelper.install();
 		initMouseGestures();
 		syncMouseGesturesWithSettings();
+		startTraceRecording();
 		theMouseGestures.start();
 		theMouseGestures.addMouseGesturesListener(theMouseGesturesListener);
+		// the settings page needs the full action tree, gestures are dispatched without it
+		ActionHelper.startLoading();
+		ActionHelper.install();
 	}
 
 	public void disposeComponent() {
 		theMouseGestures.removeMouseGesturesListener(theMouseGesturesListener);
-		Toolkit.getDefaultToolkit().removeAWTEventListener(thAwtEventListener);
 		theMouseGestures.stop();
+		stopTraceRecording();
+		ActionHelper.uninstall();
+		IdeaHelper.uninstall();
 	}
 
 	public MouseGestures getMouseGestures() {
@@ -119,18 +146,36 @@ public class MouseGesturesPlugin implements ApplicationComponent
 	}
 
 	private void initMouseGestures() {
-		thAwtEventListener = new AWTEventListener() {
-			public void eventDispatched(AWTEvent event) {
-				if (event instanceof MouseEvent) {
-					MouseEvent mouseEvent = (MouseEvent)event;
-					if (theSettings.isBlockRightClickOnEditor() &&
-						(mouseEvent.getSource() instanceof DataProvider) &&
-						mouseEvent.getID() == 501 && (mouseEvent.getModifiers() & 4) == 4)
-						mouseEvent.consume();
-				}
+		// right clicks are blocked by the gestures event listener, no separate AWT listener needed
+		theMouseGestures.setMouseEventInterceptor(new MouseEventInterceptor() {
+			public void interceptMouseEvent(MouseEvent mouseEvent) {
+				if (theSettings.isBlockRightClickOnEditor() &&
+					(mouseEvent.getSource() instanceof DataProvider) &&
+					mouseEvent.getID() == MouseEvent.MOUSE_PRESSED)
+					mouseEvent.consume();
 			}
-		};
-		Toolkit.getDefaultToolkit().addAWTEventListener(thAwtEventListener, 48L);
+		}, InputEvent.BUTTON3_DOWN_MASK);
+	}
+
+	private void startTraceRecording() {
+		String traceFile = System.getProperty(TRACE_FILE_PROPERTY);
+		if (traceFile == null) return;
+		try {
+			theMouseGestures.setTraceWriter(new GestureTraceWriter(new File(traceFile)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private void stopTraceRecording() {
+		GestureTraceWriter traceWriter = theMouseGestures.getTraceWriter();
+		if (traceWriter == null) return;
+		theMouseGestures.setTraceWriter(null);
+		try {
+			traceWriter.close();
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
 	}
 
 	public void syncMouseGesturesWithSettings() {
@@ -142,12 +187,14 @@ public class MouseGesturesPlugin implements ApplicationComponent
 	}
 
 	private static MouseGestures createMouseGestures() {
-		try {
-			return new MouseGestures(new Movements(LangUtils.get("plugin.movements")));
-		} catch (Exception e) {
-			e.printStackTrace();
-			return new MouseGestures();
-		}
+		MouseGestures mouseGestures = new MouseGestures(LangUtils.getMovements());
+		mouseGestures.setTrailFrameProvider(new TrailFrameProvider() {
+			public JFrame getTrailFrame(Component source) {
+				return IdeaHelper.getCurrentJFrame();
+			}
+		});
+		mouseGestures.setPipelineEnabled(Boolean.getBoolean(PIPELINE_PROPERTY));
+		return mouseGestures;
 	}
 
 	@Nullable @Override public Settings getState()
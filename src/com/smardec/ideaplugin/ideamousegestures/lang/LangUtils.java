@@ -19,10 +19,13 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.ideaplugin.ideamousegestures.lang;
 
+import com.smardec.mousegestures.Movements;
+
 import java.util.ResourceBundle;
 
 public class LangUtils {
 	public static final String PLUGIN_DISPLAY_NAME = "plugin.display.name";
+	public static final String PLUGIN_MOVEMENTS = "plugin.movements";
 	public static final String SETTINGS_ADVANCED_BLOCK = "settings.advanced.block";
 	public static final String SETTINGS_ADVANCED_BLOCK_TIP = "settings.advanced.block.tip";
 	public static final String SETTINGS_ADVANCED_DIAGONAL = "settings.advanced.diagonal";
@@ -42,6 +45,7 @@ public class LangUtils {
 	public static final String SETTINGS_GESTURES_EDITOR_HELP_DIALOG_TITLE = "settings.gestures.editor.help.dialog.title";
 	public static final String SETTINGS_GESTURES_EDITOR_HELP_DIALOG_MESSAGE = "settings.gestures.editor.help.dialog.message";
 	public static final String SETTINGS_GESTURES_EDITOR_GESTURE_TEXT = "settings.gestures.editor.gesture.text";
+	public static final String SETTINGS_GESTURES_EDITOR_SEARCH_TEXT = "settings.gestures.editor.search.text";
 	public static final String SETTINGS_GESTURES_EDIT_EXPLAIN = "settings.gestures.edit.explain";
 	public static final String SETTINGS_GESTURES_REMOVE = "settings.gestures.remove";
 	public static final String SETTINGS_GESTURES_REMOVE_EXPLAIN = "settings.gestures.remove.explain";
@@ -55,9 +59,11 @@ public class LangUtils {
 	public static final String SETTINGS_MOUSETRAIL_TIP = "settings.mousetrail.tip";
 	public static final String SETTINGS_MOUSETRAIL_TITLE = "settings.mousetrail.title";
 	public static final String SETTINGS_TITLE = "settings.title";
+	public static final String UNAVAILABLE_ACTION = "unavailable.action";
 	public static final String UNKNOW_GESTURE = "unknow.gesture";
 
 	private static ResourceBundle bundle;
+	private static Movements movements;
 
 	public static String get(String key) {
 		if (bundle == null) {
@@ -65,4 +71,19 @@ public class LangUtils {
 		}
 		return bundle.getString(key);
 	}
+
+	/**
+	 * Returns movements defined for the current language.
+	 */
+	public static Movements getMovements() {
+		if (movements == null) {
+			try {
+				movements = new Movements(get(PLUGIN_MOVEMENTS));
+			} catch (Exception e) {
+				e.printStackTrace();
+				movements = Movements.DEFAULT;
+			}
+		}
+		return movements;
+	}
 }
@@ -22,11 +22,16 @@ package com.smardec.ideaplugin.ideamousegestures.settings;
 import com.smardec.ideaplugin.ideamousegestures.*;
 import com.smardec.ideaplugin.ideamousegestures.lang.LangUtils;
 import com.smardec.ideaplugin.ideamousegestures.IActionNodeSelectionListener;
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.GestureTextNormalizer;
 import com.smardec.mousegestures.MouseGesturesListener;
+import com.smardec.mousegestures.Movements;
 
 import javax.swing.*;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
 import javax.swing.text.AttributeSet;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.PlainDocument;
@@ -36,6 +41,8 @@ import java.awt.event.*;
 import java.util.Set;
 
 public class GestureActionEditor implements IActionNodeSelectionListener {
+	private static final int MAX_SEARCH_RESULTS = 100;
+
 	private JPanel mainPanel;
 	private JTextField gestureTextField;
 	private JPopupMenu actionPopupMenu;
@@ -46,14 +53,34 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 	private JDialog dialog;
 	private MouseGesturesListener editMouseGesturesListener;
 	private MouseGesturesPlugin mouseGesturesPlugin;
-	private Set<String> forbiddenGestureNames;
+	private Set<Long> forbiddenGestures;
 	private JButton changeActionDescriptorButton;
 	private JDialog helpDialog;
+	private GestureTextNormalizer gestureTextNormalizer;
+	private JTextField searchTextField;
+	private JList searchResultList;
+
+	private static class SearchResult {
+		private String[] actionPath;
+
+		public SearchResult(String[] actionPath) {
+			this.actionPath = actionPath;
+		}
+
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < actionPath.length; i++) {
+				if (i > 0) sb.append(" > ");
+				sb.append(actionPath[i]);
+			}
+			return sb.toString();
+		}
+	}
 
 	public GestureActionEditor(JComponent parentComponent, MouseGesturesPlugin mouseGesturesPlugin) {
 		this.parentComponent = parentComponent;
 		this.mouseGesturesPlugin = mouseGesturesPlugin;
-		forbiddenGestureNames = null;
+		forbiddenGestures = null;
 		mainPanel = new JPanel(new BorderLayout(5, 5));
 		mainPanel.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
 
@@ -78,10 +105,10 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		c.weightx = 1.0;
 		c.anchor = WEST;
 		editMouseGesturesListener = new MouseGesturesListener() {
-			public void processGesture(String s1) {}
+			public void processGesture(long gesture) {}
 
-			public void gestureMovementRecognized(String currentGesture) {
-				gestureTextField.setText(currentGesture);
+			public void gestureMovementRecognized(long currentGesture) {
+				gestureTextField.setText(GestureCodes.decode(currentGesture, getMovements()));
 			}
 		};
 		gestureTextField = new JTextField(30);
@@ -98,20 +125,10 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		gestureTextField.setDocument(new PlainDocument() {
 			public void insertString(int offs, String str, AttributeSet a) throws BadLocationException {
 				if (str == null || str.length() == 0) return;
-				str = str.toUpperCase();
-				char[] moves = GestureActionEditor.this.mouseGesturesPlugin.getMouseGestures().getMovements().getMovements();
-				String excludeList = "[^";
-				for (char move : moves) {
-					excludeList += move;
-				}
-				excludeList += "]";
-				str = str.replaceAll(excludeList, "");
-				for (char move : moves) {
-					str = str.replaceAll(move + "+", "" + move);
-				}
+				char previousMove = offs > 0 ? getText(offs - 1, 1).charAt(0) : 0;
+				char nextMove = offs < getLength() ? getText(offs, 1).charAt(0) : 0;
+				str = getGestureTextNormalizer().normalize(str, previousMove, nextMove);
 				if (str.length() == 0) return;
-				String text = getText(0, getLength());
-				if (text.length() > 0 && text.charAt(text.length() - 1) == str.charAt(0)) str = str.substring(1);
 				super.insertString(offs, str, a);
 			}
 		});
@@ -132,7 +149,6 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 
 		c.gridx = 0;
 		c.gridy = 1;
-		c.weighty = 1.0;
 		c.gridwidth = 1;
 		c.fill = NONE;
 		c.anchor = EAST;
@@ -160,6 +176,49 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		actionDescriptorPanel.setBackground(Color.WHITE);
 		centerPanel.add(actionDescriptorPanel, c);
 
+		c.gridx = 0;
+		c.gridy = 2;
+		c.fill = NONE;
+		c.anchor = EAST;
+		c.weightx = 0.0;
+		centerPanel.add(new JLabel(LangUtils.get(LangUtils.SETTINGS_GESTURES_EDITOR_SEARCH_TEXT)), c);
+
+		c.gridx = 1;
+		c.gridwidth = 2;
+		c.fill = HORIZONTAL;
+		c.weightx = 1.0;
+		c.anchor = WEST;
+		searchTextField = new JTextField(30);
+		searchTextField.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				updateSearchResults();
+			}
+
+			public void removeUpdate(DocumentEvent e) {
+				updateSearchResults();
+			}
+
+			public void changedUpdate(DocumentEvent e) {
+				updateSearchResults();
+			}
+		});
+		centerPanel.add(searchTextField, c);
+
+		c.gridy = 3;
+		c.weighty = 1.0;
+		c.fill = BOTH;
+		searchResultList = new JList(new DefaultListModel());
+		searchResultList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		searchResultList.setVisibleRowCount(8);
+		searchResultList.addListSelectionListener(new ListSelectionListener() {
+			public void valueChanged(ListSelectionEvent e) {
+				if (e.getValueIsAdjusting()) return;
+				SearchResult searchResult = (SearchResult)searchResultList.getSelectedValue();
+				if (searchResult != null) setActionNode(searchResult.actionPath);
+			}
+		});
+		centerPanel.add(new JScrollPane(searchResultList), c);
+
 		mainPanel.add(centerPanel, BorderLayout.CENTER);
 
 		okAction = new AbstractAction(LangUtils.get(LangUtils.SETTINGS_GESTURES_EDITOR_ACCEPT)) {
@@ -184,7 +243,7 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		mainPanel.add(bottomPanel, BorderLayout.SOUTH);
 	}
 
-	public GestureAction edit(GestureAction startGestureAction, Set<String> forbiddenGestures, boolean diagonalEnabled) {
+	public GestureAction edit(GestureAction startGestureAction, Set<Long> forbiddenGestures, boolean diagonalEnabled) {
 		if (dialog == null) {
 			Window ancestor = SwingUtilities.getWindowAncestor(parentComponent);
 			String title = " ";
@@ -206,14 +265,15 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		}
 		if (startGestureAction != null) {
 			dialog.setTitle(LangUtils.get(LangUtils.SETTINGS_GESTURES_EDITOR_EDIT_TITLE));
-			gestureTextField.setText(startGestureAction.getGesture());
+			gestureTextField.setText(startGestureAction.getGestureText());
 			setActionNode(startGestureAction.getActionPath());
 		} else {
 			dialog.setTitle(LangUtils.get(LangUtils.SETTINGS_GESTURES_EDITOR_ADD_TITLE));
 			gestureTextField.setText("");
 			setActionNode(null);
 		}
-		forbiddenGestureNames = forbiddenGestures;
+		searchTextField.setText("");
+		this.forbiddenGestures = forbiddenGestures;
 		dialog.pack();
 		dialog.setLocationRelativeTo(parentComponent);
 		boolean storedDiagonalEnabled = mouseGesturesPlugin.getMouseGestures().isDiagonalEnabled();
@@ -222,7 +282,8 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 		mouseGesturesPlugin.getMouseGestures().setDiagonalEnabled(storedDiagonalEnabled);
 		gestureTextField.requestFocusInWindow();
 		if (isValid()) {
-			return new GestureAction(gestureTextField.getText().trim(), selectedActionPath);
+			return new GestureAction(getGesture(), selectedActionPath,
+									 ActionHelper.getInstance().getActionId(selectedActionPath));
 		} else {
 			return null;
 		}
@@ -233,12 +294,28 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 	}
 
 	private boolean isValid() {
-		String gesture = gestureTextField.getText();
-		if (gesture == null || gesture.length() == 0) return false;
-		if (forbiddenGestureNames != null && forbiddenGestureNames.contains(gesture)) return false;
+		long gesture = getGesture();
+		if (gesture == GestureCodes.EMPTY || gesture == GestureCodes.INVALID) return false;
+		if (forbiddenGestures != null && forbiddenGestures.contains(gesture)) return false;
 		return ActionHelper.getInstance().isValidAction(selectedActionPath);
 	}
 
+	private long getGesture() {
+		return GestureCodes.encode(gestureTextField.getText().trim(), getMovements());
+	}
+
+	private Movements getMovements() {
+		return mouseGesturesPlugin.getMouseGestures().getMovements();
+	}
+
+	private GestureTextNormalizer getGestureTextNormalizer() {
+		Movements movements = getMovements();
+		if (gestureTextNormalizer == null || gestureTextNormalizer.getMovements() != movements) {
+			gestureTextNormalizer = new GestureTextNormalizer(movements);
+		}
+		return gestureTextNormalizer;
+	}
+
 	private void onCancel() {
 		selectedActionPath = null;
 		dialog.setVisible(false);
@@ -263,8 +340,20 @@ public class GestureActionEditor implements IActionNodeSelectionListener {
 	}
 
 	private void preparePopupMenu() {
-		if (actionPopupMenu != null) return;
-		actionPopupMenu = ActionHelper.getInstance().createActionSelectionPopup(this);
+		// cheap once built, and rebuilt by the helper when the action tree changes
+		actionPopupMenu = ActionHelper.getInstance().getActionSelectionPopup(this);
+	}
+
+	private void updateSearchResults() {
+		DefaultListModel searchResults = new DefaultListModel();
+		String query = searchTextField.getText();
+		if (query.trim().length() > 0) {
+			// the index is built with the action tree, a search does not visit every action
+			for (String[] actionPath : ActionHelper.getInstance().searchActions(query, MAX_SEARCH_RESULTS)) {
+				searchResults.addElement(new SearchResult(actionPath));
+			}
+		}
+		searchResultList.setModel(searchResults);
 	}
 
 	private void revalidate() {
@@ -19,6 +19,7 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.ideaplugin.ideamousegestures.settings;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.smardec.ideaplugin.ideamousegestures.ActionHelper;
 import com.smardec.ideaplugin.ideamousegestures.GestureAction;
 import com.smardec.ideaplugin.ideamousegestures.MouseGesturesPlugin;
@@ -33,10 +34,15 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.WeakHashMap;
 
 public class GestureActionPanel {
 	private static final String ADD_GESTURE_ACTION_ID = "addGestureAction";
@@ -45,7 +51,6 @@ public class GestureActionPanel {
 
 	private MouseGesturesPlugin mouseGesturesPlugin;
 	private SettingsPanel settingsPanel;
-	private SortedSet<GestureAction> gestureActions;
 	private JPanel mainPanel;
 	private Action removeAction;
 	private Action editAction;
@@ -60,69 +65,132 @@ public class GestureActionPanel {
 		}
 	}
 
-	private class GestureActionListModel extends AbstractListModel {
+	/**
+	 * Gesture actions kept sorted in an array list, elements are found by binary search.
+	 */
+	private static class GestureActionListModel extends AbstractListModel {
+		private List<GestureAction> gestureActions = new ArrayList<GestureAction>();
+
 		public int getSize() {
 			return gestureActions.size();
 		}
 
 		public Object getElementAt(int index) {
-			return getGestureActionAt(index);
+			return gestureActions.get(index);
+		}
+
+		public GestureAction getGestureActionAt(int index) {
+			return gestureActions.get(index);
+		}
+
+		public List<GestureAction> getGestureActions() {
+			return Collections.unmodifiableList(gestureActions);
 		}
 
-		public void fireFilled(int size) {
-			fireIntervalAdded(this, 0, size - 1);
+		public int indexOf(GestureAction gestureAction) {
+			if (gestureAction == null) return -1;
+			int index = Collections.binarySearch(gestureActions, gestureAction);
+			return index >= 0 ? index : -1;
 		}
 
-		public void fireEmptied(int size) {
-			fireIntervalRemoved(this, 0, size - 1);
+		public void setGestureActions(Collection<GestureAction> someGestureActions) {
+			int size = gestureActions.size();
+			if (size > 0) {
+				gestureActions.clear();
+				fireIntervalRemoved(this, 0, size - 1);
+			}
+			// the collection may be unsorted and contain duplicates
+			List<GestureAction> sortedGestureActions = new ArrayList<GestureAction>(someGestureActions);
+			Collections.sort(sortedGestureActions);
+			for (GestureAction gestureAction : sortedGestureActions) {
+				size = gestureActions.size();
+				if (size == 0 || !gestureActions.get(size - 1).equals(gestureAction)) {
+					gestureActions.add(gestureAction);
+				}
+			}
+			size = gestureActions.size();
+			if (size > 0) {
+				fireIntervalAdded(this, 0, size - 1);
+			}
 		}
 
-		public void fireAdded(int index) {
+		/**
+		 * @return the index of the action, which is not added again if already contained
+		 */
+		public int add(GestureAction gestureAction) {
+			int index = Collections.binarySearch(gestureActions, gestureAction);
+			if (index >= 0) return index;
+			index = -index - 1;
+			gestureActions.add(index, gestureAction);
 			fireIntervalAdded(this, index, index);
+			return index;
 		}
 
-		public void fireRemoved(int index) {
+		public void remove(GestureAction gestureAction) {
+			int index = indexOf(gestureAction);
+			if (index == -1) return;
+			gestureActions.remove(index);
 			fireIntervalRemoved(this, index, index);
 		}
 
-		public void fireUpdated(int index) {
-			fireContentsChanged(this, index, index);
+		/**
+		 * Replaces the gesture actions with the updated ones, those no longer contained are skipped.
+		 */
+		public void replace(Map<GestureAction, GestureAction> updatedGestureActions) {
+			for (Map.Entry<GestureAction, GestureAction> entry : updatedGestureActions.entrySet()) {
+				if (indexOf(entry.getKey()) == -1) continue;
+				remove(entry.getKey());
+				add(entry.getValue());
+			}
+		}
+
+		/**
+		 * Removes the elements at the given ascending indices, an event is fired per run of adjacent indices.
+		 */
+		public void removeAt(int[] indices) {
+			int runEnd = indices.length - 1;
+			for (int i = indices.length - 1; i >= 0; i--) {
+				if (i > 0 && indices[i - 1] == indices[i] - 1) continue;
+				int from = indices[i];
+				int to = indices[runEnd];
+				gestureActions.subList(from, to + 1).clear();
+				fireIntervalRemoved(this, from, to);
+				runEnd = i - 1;
+			}
 		}
 	}
 
+	/**
+	 * Renders the gesture actions with one cell per selection state, the way DefaultListCellRenderer
+	 * reuses its label. Only the icons of the action paths are kept per gesture action, so that painting
+	 * the list does not walk the action tree. They are dropped when the action tree changes.
+	 */
 	private static class GestureActionRenderer implements ListCellRenderer {
 		private static final Border NO_FOCUS_BORDER = new EmptyBorder(1, 1, 1, 1);
-		private JPanel panel;
-		private JLabel gestureLabel;
-		private JPanel actionPanel;
-
-		public GestureActionRenderer() {
-			panel = new JPanel(new GridLayout(2, 1, 5, 5));
-			panel.setOpaque(true);
-			gestureLabel = new JLabel(" ");
-			gestureLabel.setFont(gestureLabel.getFont().deriveFont(Font.BOLD, 15f));
-			panel.add(gestureLabel);
-			actionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
-			actionPanel.setOpaque(false);
-			panel.add(actionPanel);
-		}
+		private static final Icon[] NO_ICONS = new Icon[0];
+		private Map<GestureAction, Icon[]> actionPathIcons = new WeakHashMap<GestureAction, Icon[]>();
+		private int generation;
+		private LookAndFeel lookAndFeel;
+		private GestureActionCell unselectedCell;
+		private GestureActionCell selectedCell;
 
 		public Component getListCellRendererComponent(JList list, Object value, int index,
 													  boolean selected, boolean hasFocus) {
+			validateCells();
 			GestureAction gestureAction = (GestureAction)value;
-			gestureLabel.setText(gestureAction.getGesture());
-			panel.setComponentOrientation(list.getComponentOrientation());
-			Color textColor;
+			GestureActionCell cell;
 			if (selected) {
-				panel.setBackground(list.getSelectionBackground());
-				textColor = list.getSelectionForeground();
+				if (selectedCell == null) selectedCell = new GestureActionCell(true);
+				cell = selectedCell;
 			} else {
-				panel.setBackground(list.getBackground());
-				textColor = list.getForeground();
+				if (unselectedCell == null) unselectedCell = new GestureActionCell(false);
+				cell = unselectedCell;
 			}
-			gestureLabel.setForeground(textColor);
-			ActionHelper.getInstance().constructView(actionPanel, gestureAction.getActionPath(), textColor, selected);
-
+			cell.update(gestureAction, getActionPathIcons(gestureAction),
+						selected ? list.getSelectionForeground() : list.getForeground());
+			JPanel panel = cell.panel;
+			panel.setComponentOrientation(list.getComponentOrientation());
+			panel.setBackground(selected ? list.getSelectionBackground() : list.getBackground());
 			panel.setEnabled(list.isEnabled());
 
 			Border border = null;
@@ -137,9 +205,101 @@ public class GestureActionPanel {
 				border = NO_FOCUS_BORDER;
 			}
 			panel.setBorder(border);
-			panel.revalidate();
 			return panel;
 		}
+
+		private void validateCells() {
+			int currentGeneration = ActionHelper.getGeneration();
+			if (currentGeneration != generation) {
+				actionPathIcons.clear();
+				generation = currentGeneration;
+			}
+			LookAndFeel currentLookAndFeel = UIManager.getLookAndFeel();
+			if (currentLookAndFeel != lookAndFeel) {
+				// the fonts of the labels come from the look and feel
+				unselectedCell = null;
+				selectedCell = null;
+				lookAndFeel = currentLookAndFeel;
+			}
+		}
+
+		private Icon[] getActionPathIcons(GestureAction gestureAction) {
+			Icon[] icons = actionPathIcons.get(gestureAction);
+			if (icons == null) {
+				icons = ActionHelper.getInstance().getActionPathIcons(gestureAction.getActionPath());
+				if (icons == null) icons = NO_ICONS;
+				actionPathIcons.put(gestureAction, icons);
+			}
+			return icons;
+		}
+	}
+
+	/**
+	 * The gesture and the action path of a gesture action, labels are added as longer paths are shown
+	 * and kept for the next ones.
+	 */
+	private static class GestureActionCell {
+		private static final Border LABEL_BORDER = new EmptyBorder(0, 0, 0, 3);
+		private boolean selected;
+		private JPanel panel;
+		private JLabel gestureLabel;
+		private JPanel actionPanel;
+		private List<JLabel> textLabels = new ArrayList<JLabel>();
+		private List<JLabel> arrowLabels = new ArrayList<JLabel>();
+
+		private GestureActionCell(boolean selected) {
+			this.selected = selected;
+			panel = new JPanel(new GridLayout(2, 1, 5, 5));
+			panel.setOpaque(true);
+			gestureLabel = new JLabel();
+			gestureLabel.setFont(gestureLabel.getFont().deriveFont(Font.BOLD, 15f));
+			panel.add(gestureLabel);
+			actionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+			actionPanel.setOpaque(false);
+			panel.add(actionPanel);
+		}
+
+		private void update(GestureAction gestureAction, Icon[] icons, Color textColor) {
+			gestureLabel.setText(gestureAction.getGestureText());
+			gestureLabel.setForeground(textColor);
+			actionPanel.removeAll();
+			if (icons.length == 0) {
+				// keeps the height of the cell for paths not in the tree
+				JLabel emptyLabel = getTextLabel(0);
+				emptyLabel.setText(" ");
+				emptyLabel.setIcon(null);
+				actionPanel.add(emptyLabel);
+				return;
+			}
+			String[] actionPath = gestureAction.getActionPath();
+			for (int i = 0; i < icons.length; i++) {
+				if (i > 0) actionPanel.add(getArrowLabel(i - 1));
+				JLabel textLabel = getTextLabel(i);
+				textLabel.setText(actionPath[i]);
+				textLabel.setIcon(icons[i]);
+				textLabel.setForeground(textColor);
+				actionPanel.add(textLabel);
+			}
+		}
+
+		private JLabel getTextLabel(int index) {
+			while (textLabels.size() <= index) {
+				JLabel label = new JLabel(" ", null, JLabel.LEADING);
+				label.setFont(label.getFont().deriveFont(12f));
+				label.setBorder(LABEL_BORDER);
+				textLabels.add(label);
+			}
+			return textLabels.get(index);
+		}
+
+		private JLabel getArrowLabel(int index) {
+			while (arrowLabels.size() <= index) {
+				JLabel label = new JLabel(ActionHelper.getArrowIcon(selected));
+				label.setBorder(LABEL_BORDER);
+				arrowLabels.add(label);
+			}
+			return arrowLabels.get(index);
+		}
 	}
 
 	public GestureActionPanel(MouseGesturesPlugin mouseGesturesPlugin, SettingsPanel settingsPanel) {
@@ -175,7 +335,6 @@ public class GestureActionPanel {
 		toolBar.add(editAction);
 		mainPanel.add(toolBar, BorderLayout.NORTH);
 
-		gestureActions = new TreeSet<GestureAction>();
 		gestureActionListModel = new GestureActionListModel();
 		gestureActionList = new JList(gestureActionListModel);
 		gestureActionList.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
@@ -211,22 +370,56 @@ public class GestureActionPanel {
 		return mainPanel;
 	}
 
+	/**
+	 * Shows the gesture actions of the settings, with the current paths of actions whose menu texts
+	 * changed since they were bound. The updated paths are stored on apply, like any other change.
+	 */
 	public void reset() {
-		int size = gestureActions.size();
-		if (size > 0) {
-			gestureActions.clear();
-			gestureActionListModel.fireEmptied(size);
+		final Collection<GestureAction> gestureActions = mouseGesturesPlugin.getSettings().getGestureActions();
+		gestureActionListModel.setGestureActions(gestureActions);
+		if (ActionHelper.isLoaded()) {
+			gestureActionListModel.replace(getUpdatedActionPaths(gestureActions, ActionHelper.getInstance()));
+			return;
 		}
-		gestureActions.addAll(mouseGesturesPlugin.getSettings().getGestureActions());
-		size = gestureActions.size();
-		if (size > 0) {
-			gestureActionListModel.fireFilled(size);
+		// the event dispatch thread must not wait for the action tree
+		final List<GestureAction> shownGestureActions = new ArrayList<GestureAction>(gestureActions);
+		ApplicationManager.getApplication().executeOnPooledThread(new Runnable() {
+			public void run() {
+				final Map<GestureAction, GestureAction> updatedGestureActions =
+					getUpdatedActionPaths(shownGestureActions, ActionHelper.getInstance());
+				if (updatedGestureActions.isEmpty()) return;
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						gestureActionListModel.replace(updatedGestureActions);
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Returns the gesture actions, bound by ID, whose paths are no longer in the action tree, mapped
+	 * to the same actions with their current paths.
+	 */
+	private static Map<GestureAction, GestureAction> getUpdatedActionPaths(Collection<GestureAction> gestureActions,
+																		   ActionHelper actionHelper) {
+		Map<GestureAction, GestureAction> updatedGestureActions = new HashMap<GestureAction, GestureAction>();
+		for (GestureAction gestureAction : gestureActions) {
+			if (gestureAction.getActionId() == null || actionHelper.isValidAction(gestureAction.getActionPath())) {
+				continue;
+			}
+			String[] path = actionHelper.getActionPath(gestureAction.getActionId());
+			if (path != null) {
+				updatedGestureActions.put(gestureAction,
+										  new GestureAction(gestureAction.getGesture(), path, gestureAction.getActionId()));
+			}
 		}
+		return updatedGestureActions;
 	}
 
 	public GestureAction[] getActions() {
-		GestureAction[] gestureActions = this.gestureActions.toArray(new GestureAction[this.gestureActions.size()]);
-		return gestureActions;
+		List<GestureAction> gestureActions = gestureActionListModel.getGestureActions();
+		return gestureActions.toArray(new GestureAction[gestureActions.size()]);
 	}
 
 	public void dispose() {
@@ -234,7 +427,7 @@ public class GestureActionPanel {
 	}
 
 	public boolean isModified() {
-		return mouseGesturesPlugin.getSettings().isModified(gestureActions);
+		return mouseGesturesPlugin.getSettings().isModified(gestureActionListModel.getGestureActions());
 	}
 
 	private void onSelection() {
@@ -253,11 +446,8 @@ public class GestureActionPanel {
 		int[] selectedIndices = gestureActionList.getSelectedIndices();
 		if (selectedIndices == null || selectedIndices.length == 0) return;
 		int startIndex = selectedIndices[0];
-		for (int i = selectedIndices.length - 1; i >= 0; i--) {
-			int selectedIndice = selectedIndices[i];
-			concreteRemove(getGestureActionAt(selectedIndice));
-		}
-		startIndex = Math.min(startIndex, gestureActions.size() - 1);
+		gestureActionListModel.removeAt(selectedIndices);
+		startIndex = Math.min(startIndex, gestureActionListModel.getSize() - 1);
 		if (startIndex == -1) return;
 		gestureActionList.setSelectedIndex(startIndex);
 	}
@@ -265,7 +455,7 @@ public class GestureActionPanel {
 	private void onEdit() {
 		int selectedIndex = gestureActionList.getSelectedIndex();
 		if (selectedIndex == -1) return;
-		GestureAction gestureAction = getGestureActionAt(selectedIndex);
+		GestureAction gestureAction = gestureActionListModel.getGestureActionAt(selectedIndex);
 		GestureAction editedGestureAction = addOrEdit(gestureAction);
 		if (editedGestureAction == null) return;
 		concreteRemove(gestureAction);
@@ -273,8 +463,8 @@ public class GestureActionPanel {
 	}
 
 	private GestureAction addOrEdit(GestureAction selectedGestureAction) {
-		Set<String> forbiddenGestures = new TreeSet<String>();
-		for (GestureAction gestureAction : gestureActions) {
+		Set<Long> forbiddenGestures = new TreeSet<Long>();
+		for (GestureAction gestureAction : gestureActionListModel.getGestureActions()) {
 			if (selectedGestureAction == null || !gestureAction.equals(selectedGestureAction)) {
 				forbiddenGestures.add(gestureAction.getGesture());
 			}
@@ -285,36 +475,13 @@ public class GestureActionPanel {
 
 	private void concreteAdd(GestureAction gestureAction) {
 		if (gestureAction == null) return;
-		gestureActions.add(gestureAction);
-		int index = indexOf(gestureAction);
-		gestureActionListModel.fireAdded(index);
+		int index = gestureActionListModel.add(gestureAction);
 		gestureActionList.setSelectedIndex(index);
 	}
 
 	private void concreteRemove(GestureAction gestureAction) {
 		if (gestureAction == null) return;
-		int index = indexOf(gestureAction);
-		if (index == -1) return;
-		gestureActions.remove(gestureAction);
-		gestureActionListModel.fireRemoved(index);
-	}
-
-	private int indexOf(GestureAction gestureAction) {
-		if (gestureAction == null) return -1;
-		int i = 0;
-		for (Iterator<GestureAction> iterator = gestureActions.iterator(); iterator.hasNext(); i++) {
-			if (iterator.next().equals(gestureAction)) return i;
-		}
-		return -1;
-	}
-
-	private GestureAction getGestureActionAt(int index) {
-		int i = 0;
-		for (Iterator<GestureAction> iterator = gestureActions.iterator(); iterator.hasNext(); i++) {
-			GestureAction gestureAction = iterator.next();
-			if (i == index) return gestureAction;
-		}
-		return null;
+		gestureActionListModel.remove(gestureAction);
 	}
 
 	private void prepareGestureActionEditor() {
@@ -0,0 +1,103 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures.settings;
+
+import com.smardec.mousegestures.GestureCodes;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing map from packed gestures (see {@link GestureCodes}) to values. The table is
+ * kept at most half full and doubled when more values are put. Lookups do not allocate.
+ */
+class GestureMap<V> {
+	private static final long FREE = GestureCodes.INVALID;
+
+	private long[] gestures;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * @param expectedSize number of values the map holds without growing
+	 */
+	GestureMap(int expectedSize) {
+		allocate(Integer.highestOneBit(Math.max(expectedSize, 1) * 2) * 2);
+	}
+
+	/**
+	 * Binds the value to the gesture, unless a value is already bound to it.
+	 * {@link GestureCodes#INVALID} marks free slots, so it cannot be bound.
+	 */
+	void put(long gesture, V value) {
+		if (gesture == GestureCodes.INVALID) return;
+		int index = indexOf(gesture);
+		if (gestures[index] != FREE) return;
+		gestures[index] = gesture;
+		values[index] = value;
+		if (++size * 2 > gestures.length) grow();
+	}
+
+	int size() {
+		return size;
+	}
+
+	int capacity() {
+		return gestures.length;
+	}
+
+	@SuppressWarnings("unchecked")
+	V get(long gesture) {
+		if (gesture == GestureCodes.INVALID) return null;
+		return (V)values[indexOf(gesture)];
+	}
+
+	private void allocate(int capacity) {
+		gestures = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+		Arrays.fill(gestures, FREE);
+	}
+
+	private void grow() {
+		long[] oldGestures = gestures;
+		Object[] oldValues = values;
+		allocate(oldGestures.length * 2);
+		for (int i = 0; i < oldGestures.length; i++) {
+			if (oldGestures[i] == FREE) continue;
+			int index = indexOf(oldGestures[i]);
+			gestures[index] = oldGestures[i];
+			values[index] = oldValues[i];
+		}
+	}
+
+	private int indexOf(long gesture) {
+		int index = hash(gesture) & mask;
+		while (gestures[index] != FREE && gestures[index] != gesture) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	static int hash(long gesture) {
+		long h = gesture * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+}
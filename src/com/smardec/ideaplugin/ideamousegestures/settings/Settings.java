@@ -19,20 +19,27 @@ Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
 
 package com.smardec.ideaplugin.ideamousegestures.settings;
 
+import com.intellij.openapi.actionSystem.ActionManager;
+import com.intellij.openapi.actionSystem.AnAction;
 import com.intellij.openapi.util.InvalidDataException;
 import com.intellij.openapi.util.JDOMExternalizable;
 import com.intellij.openapi.util.WriteExternalException;
 import com.smardec.ideaplugin.ideamousegestures.ActionHelper;
 import com.smardec.ideaplugin.ideamousegestures.GestureAction;
+import com.smardec.ideaplugin.ideamousegestures.lang.LangUtils;
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.Movements;
 import org.jdom.Element;
 import org.jdom.Text;
 
 import java.awt.*;
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.List;
 
 public class Settings implements JDOMExternalizable {
 	private static final String TAG_GESTURE = "gesture";
+	private static final String TAG_GESTURE_CODE = "gesture-code";
 	private static final String TAG_GRID_SIZE = "grid-size";
 	private static final String TAG_BLOCK_RIGHT_CLICK = "block-right-click";
 	private static final String TAG_DIAGONAL_ENABLED = "diagonal-enabled";
@@ -43,6 +50,7 @@ public class Settings implements JDOMExternalizable {
 	private static final String TAG_GESTURE_ACTION = "gesture-action";
 	private static final String TAG_ACTION_PATH = "action-path";
 	private static final String TAG_ACTION_PATH_ITEM = "action-path-item";
+	private static final String TAG_ACTION_ID = "action-id";
 
 	private static final int     DEFAULT_GRID_SIZE = 30;
 	private static final boolean DEFAULT_BLOCK_RIGHT_CLICK_ON_EDITOR = true;
@@ -58,6 +66,27 @@ public class Settings implements JDOMExternalizable {
 	private int mouseTrailSize;
 	private Color mouseTrailColor;
 	private SortedSet<GestureAction> gestureActions;
+	private GestureMap<GestureAction> gestureActionMap;
+	private GestureMap<BoundAction> dispatchTable;
+	private int dispatchGeneration;
+
+	/**
+	 * Action bound to a gesture, by its ID so that an unloaded action is neither kept reachable
+	 * nor invoked. Actions without ID are weakly referenced.
+	 */
+	private static class BoundAction {
+		private String actionId;
+		private WeakReference<AnAction> action;
+
+		private BoundAction(String actionId, AnAction action) {
+			this.actionId = actionId;
+			this.action = actionId == null ? new WeakReference<AnAction>(action) : null;
+		}
+
+		private AnAction getAction() {
+			return actionId != null ? ActionManager.getInstance().getAction(actionId) : action.get();
+		}
+	}
 
 	public Settings() {
 		reset();
@@ -67,6 +96,8 @@ public class Settings implements JDOMExternalizable {
 		gridSize = DEFAULT_GRID_SIZE;
 		blockRightClickOnEditor = DEFAULT_BLOCK_RIGHT_CLICK_ON_EDITOR;
 		gestureActions = new TreeSet<GestureAction>();
+		gestureActionMap = null;
+		dispatchTable = null;
 		diagonalEnabled = DEFAULT_DIAGONAL_ENABLED;
 		mouseTrailEnabled = DEFAULT_MOUSE_TRAIL_ENABLED;
 		mouseTrailSize = DEFAULT_MOUSE_TRAIL_SIZE;
@@ -101,7 +132,8 @@ public class Settings implements JDOMExternalizable {
 				List<GestureAction> gestureActionList = new LinkedList<GestureAction>();
 				for (Object o : gestureActionsElement.getChildren(TAG_GESTURE_ACTION)) {
 					Element gestureActionElement = (Element)o;
-					String gesture = gestureActionElement.getChildTextTrim(TAG_GESTURE);
+					long gesture = readGesture(gestureActionElement);
+					if (gesture == GestureCodes.INVALID) continue;
 					List<String> pathItemList = new LinkedList<String>();
 					Element actionPathElement = gestureActionElement.getChild(TAG_ACTION_PATH);
 					if (actionPathElement != null) {
@@ -111,9 +143,14 @@ public class Settings implements JDOMExternalizable {
 						}
 					}
 					String[] path = pathItemList.toArray(new String[pathItemList.size()]);
-					if (ActionHelper.getInstance().isValidAction(path)) {
-						gestureActionList.add(new GestureAction(gesture, path));
+					String actionId = gestureActionElement.getChildTextTrim(TAG_ACTION_ID);
+					// bindings with a registered ID need no action tree, which is built later on
+					if (!ActionHelper.isRegisteredAction(actionId)) {
+						ActionHelper actionHelper = ActionHelper.getInstance();
+						if (!actionHelper.isValidAction(path)) continue;
+						actionId = actionHelper.getActionId(path);
 					}
+					gestureActionList.add(new GestureAction(gesture, path, actionId));
 				}
 				setGestureActions(gestureActionList.toArray(new GestureAction[gestureActionList.size()]));
 			}
@@ -155,9 +192,13 @@ public class Settings implements JDOMExternalizable {
 				Element gestureActionElement = new Element(TAG_GESTURE_ACTION);
 
 				Element gestureElement = new Element(TAG_GESTURE);
-				gestureElement.setContent(new Text(gestureAction.getGesture()));
+				gestureElement.setContent(new Text(gestureAction.getGestureText()));
 				gestureActionElement.addContent(gestureElement);
 
+				Element gestureCodeElement = new Element(TAG_GESTURE_CODE);
+				gestureCodeElement.setContent(new Text(Long.toString(gestureAction.getGesture())));
+				gestureActionElement.addContent(gestureCodeElement);
+
 				String[] path = gestureAction.getActionPath();
 				Element pathElement = new Element(TAG_ACTION_PATH);
 				for (String pathItem : path) {
@@ -166,6 +207,12 @@ public class Settings implements JDOMExternalizable {
 					pathElement.addContent(pathItemElement);
 				}
 				gestureActionElement.addContent(pathElement);
+
+				if (gestureAction.getActionId() != null) {
+					Element actionIdElement = new Element(TAG_ACTION_ID);
+					actionIdElement.setContent(new Text(gestureAction.getActionId()));
+					gestureActionElement.addContent(actionIdElement);
+				}
 				gestureActionsElement.addContent(gestureActionElement);
 			}
 			anElement.addContent(gestureActionsElement);
@@ -174,25 +221,85 @@ public class Settings implements JDOMExternalizable {
 		}
 	}
 
-	public GestureAction getAction(String aGesture) {
-		if (aGesture == null) return null;
-		for (GestureAction gestureAction : gestureActions) {
-			if (gestureAction.getGesture().equals(aGesture)) return gestureAction;
+	public GestureAction getAction(long aGesture) {
+		if (gestureActionMap == null) {
+			gestureActionMap = createGestureActionMap(gestureActions);
+		}
+		return gestureActionMap.get(aGesture);
+	}
+
+	/**
+	 * Returns the action bound to the gesture, <code>null</code> if there is none or it was unregistered.
+	 * The actions are resolved once, and again only when the gesture actions are set or the registered
+	 * actions change, then found by ID.
+	 */
+	public AnAction getBoundAction(long aGesture) {
+		int generation = ActionHelper.getGeneration();
+		if (dispatchTable == null || dispatchGeneration != generation) {
+			if (gestureActionMap == null) {
+				gestureActionMap = createGestureActionMap(gestureActions);
+			}
+			dispatchTable = createDispatchTable(gestureActionMap, gestureActions);
+			dispatchGeneration = generation;
 		}
-		return null;
+		BoundAction boundAction = dispatchTable.get(aGesture);
+		return boundAction != null ? boundAction.getAction() : null;
 	}
 
 	public Collection<GestureAction> getGestureActions() {
 		return Collections.unmodifiableCollection(gestureActions);
 	}
 
-	public boolean isModified(Set<GestureAction> someGestureActions) {
-		return !gestureActions.equals(someGestureActions);
+	public boolean isModified(Collection<GestureAction> someGestureActions) {
+		// both hold each gesture action once
+		return gestureActions.size() != someGestureActions.size() || !gestureActions.containsAll(someGestureActions);
 	}
 
 	public void setGestureActions(GestureAction[] someGestureActions) {
 		gestureActions.clear();
 		gestureActions.addAll(Arrays.asList(someGestureActions));
+		gestureActionMap = createGestureActionMap(gestureActions);
+		dispatchTable = null;
+	}
+
+	private static GestureMap<GestureAction> createGestureActionMap(Collection<GestureAction> gestureActions) {
+		GestureMap<GestureAction> gestureActionMap = new GestureMap<GestureAction>(gestureActions.size());
+		for (GestureAction gestureAction : gestureActions) {
+			gestureActionMap.put(gestureAction.getGesture(), gestureAction);
+		}
+		return gestureActionMap;
+	}
+
+	private static GestureMap<BoundAction> createDispatchTable(GestureMap<GestureAction> gestureActionMap,
+															   Collection<GestureAction> gestureActions) {
+		GestureMap<BoundAction> dispatchTable = new GestureMap<BoundAction>(gestureActions.size());
+		for (GestureAction gestureAction : gestureActions) {
+			// only the action returned by getAction(long) is bound
+			if (gestureActionMap.get(gestureAction.getGesture()) != gestureAction) continue;
+			AnAction action = ActionHelper.findAction(gestureAction.getActionId(), gestureAction.getActionPath());
+			if (action == null) continue;
+			// actions bound by path before IDs were stored have an ID too, mostly
+			String actionId = gestureAction.getActionId() != null ?
+							  gestureAction.getActionId() : ActionManager.getInstance().getId(action);
+			dispatchTable.put(gestureAction.getGesture(), new BoundAction(actionId, action));
+		}
+		return dispatchTable;
+	}
+
+	private static long readGesture(Element gestureActionElement) {
+		// the packed code does not depend on the language, prefer it when present
+		String gestureCodeText = gestureActionElement.getChildTextTrim(TAG_GESTURE_CODE);
+		if (gestureCodeText != null) {
+			try {
+				return Long.parseLong(gestureCodeText);
+			} catch (NumberFormatException e) {
+				//
+			}
+		}
+		String gestureText = gestureActionElement.getChildTextTrim(TAG_GESTURE);
+		long gesture = GestureCodes.encode(gestureText, LangUtils.getMovements());
+		if (gesture == GestureCodes.INVALID) gesture = GestureCodes.encode(gestureText, Movements.DEFAULT);
+		return gesture;
 	}
 
 	public int getGridSize() {
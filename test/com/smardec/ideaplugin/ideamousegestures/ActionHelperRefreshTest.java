@@ -0,0 +1,141 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2005 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ActionHelperRefreshTest {
+	private DefaultActionGroup mainMenu;
+	private DefaultActionGroup file;
+	private DefaultActionGroup edit;
+
+	@Before
+	public void setUp() {
+		file = createGroup("File", "Open", "Save");
+		edit = createGroup("Edit", "Undo");
+		mainMenu = new DefaultActionGroup();
+		mainMenu.add(file);
+		mainMenu.add(edit);
+	}
+
+	@Test
+	public void unchangedMenuKeepsNodes() {
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		ActionHelper.Node[] nodes = actionHelper.getMainMenuNodes();
+		ActionHelper.Node open = actionHelper.findActionNode(new String[]{"File", "Open"});
+		int generation = ActionHelper.getGeneration();
+		assertFalse(actionHelper.refresh());
+		assertEquals(generation, ActionHelper.getGeneration());
+		assertArrayEquals(nodes, actionHelper.getMainMenuNodes());
+		assertSame(open, actionHelper.findActionNode(new String[]{"File", "Open"}));
+	}
+
+	@Test
+	public void changedGroupIsBuiltAgain() {
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		ActionHelper.Node[] nodes = actionHelper.getMainMenuNodes();
+		edit.add(new TestAction("Redo"));
+		assertTrue(actionHelper.refresh());
+		ActionHelper.Node[] refreshedNodes = actionHelper.getMainMenuNodes();
+		assertSame(nodes[0], refreshedNodes[0]);
+		assertNotSame(nodes[1], refreshedNodes[1]);
+		assertTrue(actionHelper.isValidAction(new String[]{"Edit", "Redo"}));
+		assertTrue(actionHelper.isValidAction(new String[]{"Edit", "Undo"}));
+	}
+
+	@Test
+	public void reorderedGroupsKeepNodes() {
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		ActionHelper.Node[] nodes = actionHelper.getMainMenuNodes();
+		mainMenu.remove(file);
+		mainMenu.add(file);
+		assertTrue(actionHelper.refresh());
+		assertArrayEquals(new ActionHelper.Node[]{nodes[1], nodes[0]}, actionHelper.getMainMenuNodes());
+	}
+
+	@Test
+	public void duplicateGroupsGetTheirOwnNodes() {
+		mainMenu.add(file);
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		ActionHelper.Node[] nodes = actionHelper.getMainMenuNodes();
+		assertEquals(3, nodes.length);
+		assertNotSame(nodes[0], nodes[2]);
+		assertFalse(actionHelper.refresh());
+		assertArrayEquals(nodes, actionHelper.getMainMenuNodes());
+		// the remaining duplicate keeps its nodes, the ones of the removed duplicate are dropped
+		mainMenu.remove(file);
+		assertTrue(actionHelper.refresh());
+		ActionHelper.Node[] refreshedNodes = actionHelper.getMainMenuNodes();
+		assertEquals(2, refreshedNodes.length);
+		assertSame(nodes[1], refreshedNodes[0]);
+		assertTrue(refreshedNodes[1] == nodes[0] || refreshedNodes[1] == nodes[2]);
+		assertTrue(actionHelper.isValidAction(new String[]{"File", "Open"}));
+	}
+
+	@Test
+	public void removedGroupsAndActionsBecomeInvalid() {
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		AnAction save = file.getChildren(null)[1];
+		file.remove(save);
+		mainMenu.remove(edit);
+		assertTrue(actionHelper.refresh());
+		assertEquals(1, actionHelper.getMainMenuNodes().length);
+		assertTrue(actionHelper.isValidAction(new String[]{"File", "Open"}));
+		assertFalse(actionHelper.isValidAction(new String[]{"File", "Save"}));
+		assertFalse(actionHelper.isValidAction(new String[]{"Edit", "Undo"}));
+	}
+
+	@Test
+	public void equalGroupOfAnotherActionIsBuiltAgain() {
+		ActionHelper actionHelper = new ActionHelper(mainMenu);
+		ActionHelper.Node[] nodes = actionHelper.getMainMenuNodes();
+		// same texts, so same fingerprint, but the old nodes would refer to the actions of the replaced group
+		mainMenu.remove(edit);
+		mainMenu.add(createGroup("Edit", "Undo"));
+		assertTrue(actionHelper.refresh());
+		ActionHelper.Node[] refreshedNodes = actionHelper.getMainMenuNodes();
+		assertSame(nodes[0], refreshedNodes[0]);
+		assertNotSame(nodes[1], refreshedNodes[1]);
+	}
+
+	private static DefaultActionGroup createGroup(String text, String... actionTexts) {
+		DefaultActionGroup group = new DefaultActionGroup(text, true);
+		for (String actionText : actionTexts) {
+			group.add(new TestAction(actionText));
+		}
+		return group;
+	}
+
+	private static class TestAction extends AnAction {
+		private TestAction(String text) {
+			super(text);
+		}
+
+		public void actionPerformed(AnActionEvent e) {
+		}
+	}
+}
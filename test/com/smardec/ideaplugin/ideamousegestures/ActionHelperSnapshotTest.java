@@ -0,0 +1,161 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2005 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import com.intellij.openapi.actionSystem.Separator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class ActionHelperSnapshotTest {
+	private static final String SNAPSHOT_KEY = "test";
+	private static final String[][] ACTION_PATHS = {
+		{"File", "Open"},
+		{"File", "Save"},
+		{"File", "Recent", "Clear"},
+		{"Edit", "Undo"},
+	};
+
+	private DefaultActionGroup mainMenu;
+	private File snapshotFile;
+
+	@Before
+	public void setUp() throws IOException {
+		DefaultActionGroup file = new DefaultActionGroup("File", true);
+		file.add(new TestAction("Open"));
+		file.add(new TestAction("Save"));
+		file.add(Separator.getInstance());
+		DefaultActionGroup recent = new DefaultActionGroup("Recent", true);
+		recent.add(new TestAction("Clear"));
+		file.add(recent);
+		DefaultActionGroup edit = new DefaultActionGroup("Edit", true);
+		edit.add(new TestAction("Undo"));
+		mainMenu = new DefaultActionGroup();
+		mainMenu.add(file);
+		mainMenu.add(edit);
+		snapshotFile = File.createTempFile("mouseGesturesActions", ".cache");
+		snapshotFile.delete();
+	}
+
+	@After
+	public void tearDown() {
+		snapshotFile.delete();
+	}
+
+	@Test
+	public void snapshotIsWrittenAndRead() throws IOException {
+		createActionHelper();
+		assertTrue("snapshot written", snapshotFile.isFile());
+		byte[] snapshot = readSnapshot();
+		assertActionPaths(createActionHelper());
+		assertArrayEquals("snapshot written again", snapshot, readSnapshot());
+	}
+
+	@Test
+	public void snapshotIsWrittenByExecutor() throws IOException {
+		final List<Runnable> writers = new ArrayList<Runnable>();
+		new ActionHelper(mainMenu, null, null, snapshotFile, SNAPSHOT_KEY, new Executor() {
+			public void execute(Runnable command) {
+				writers.add(command);
+			}
+		});
+		assertFalse("snapshot not written by the building thread", snapshotFile.exists());
+		assertEquals(1, writers.size());
+		writers.get(0).run();
+		assertTrue("snapshot written", snapshotFile.isFile());
+		assertActionPaths(createActionHelper());
+	}
+
+	@Test
+	public void truncatedSnapshotFallsBackToBuiltTree() throws IOException {
+		createActionHelper();
+		byte[] snapshot = readSnapshot();
+		for (int length = 0; length < snapshot.length; length++) {
+			writeSnapshot(Arrays.copyOf(snapshot, length));
+			assertActionPaths(createActionHelper());
+			assertArrayEquals("snapshot truncated to " + length + " bytes replaced", snapshot, readSnapshot());
+		}
+	}
+
+	@Test
+	public void corruptedSnapshotFallsBackToBuiltTree() throws IOException {
+		createActionHelper();
+		byte[] snapshot = readSnapshot();
+		for (int position = 0; position < snapshot.length; position++) {
+			byte[] corrupted = snapshot.clone();
+			// turns lengths into huge or negative ones and node types into unknown ones
+			corrupted[position] ^= 0xFF;
+			writeSnapshot(corrupted);
+			assertActionPaths(createActionHelper());
+			assertArrayEquals("snapshot corrupted at byte " + position + " replaced", snapshot, readSnapshot());
+		}
+	}
+
+	private ActionHelper createActionHelper() {
+		return new ActionHelper(mainMenu, null, null, snapshotFile, SNAPSHOT_KEY);
+	}
+
+	private static void assertActionPaths(ActionHelper actionHelper) {
+		for (String[] actionPath : ACTION_PATHS) {
+			assertTrue(Arrays.toString(actionPath), actionHelper.isValidAction(actionPath));
+		}
+		assertFalse(actionHelper.isValidAction(new String[]{"File", "Recent"}));
+	}
+
+	private byte[] readSnapshot() throws IOException {
+		byte[] bytes = new byte[(int)snapshotFile.length()];
+		DataInputStream input = new DataInputStream(new FileInputStream(snapshotFile));
+		try {
+			input.readFully(bytes);
+		} finally {
+			input.close();
+		}
+		return bytes;
+	}
+
+	private void writeSnapshot(byte[] bytes) throws IOException {
+		OutputStream output = new FileOutputStream(snapshotFile);
+		try {
+			output.write(bytes);
+		} finally {
+			output.close();
+		}
+	}
+
+	private static class TestAction extends AnAction {
+		private TestAction(String text) {
+			super(text);
+		}
+
+		public void actionPerformed(AnActionEvent e) {
+		}
+	}
+}
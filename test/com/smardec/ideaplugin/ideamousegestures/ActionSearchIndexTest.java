@@ -0,0 +1,146 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2005 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+
+package com.smardec.ideaplugin.ideamousegestures;
+
+import com.intellij.openapi.actionSystem.AnAction;
+import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.actionSystem.DefaultActionGroup;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ActionSearchIndexTest {
+	private static final int ITEM_COUNT = 150;
+	private static final int MAX_RESULTS = 100;
+
+	private ActionHelper actionHelper;
+
+	@Before
+	public void setUp() {
+		DefaultActionGroup file = createGroup("File", "Open", "Opened Files", "Optimize Imports", "Close", "Zebra", "Apple Zoo");
+		DefaultActionGroup recent = createGroup("Recent", "Open Recent...", "Clear");
+		file.add(recent);
+		List<String> itemTexts = new ArrayList<String>();
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			itemTexts.add("Item " + i);
+		}
+		DefaultActionGroup items = createGroup("Items", itemTexts.toArray(new String[itemTexts.size()]));
+		DefaultActionGroup mainMenu = new DefaultActionGroup();
+		mainMenu.add(file);
+		mainMenu.add(items);
+		actionHelper = new ActionHelper(mainMenu);
+	}
+
+	@Test
+	public void wordPrefixSelectsRangeOfWords() {
+		assertResults("op", new String[][]{
+			{"File", "Open"},
+			{"File", "Opened Files"},
+			{"File", "Optimize Imports"},
+			{"File", "Recent", "Open Recent..."},
+		});
+		assertResults("open", new String[][]{
+			{"File", "Open"},
+			{"File", "Opened Files"},
+			{"File", "Recent", "Open Recent..."},
+		});
+		assertResults("opene", new String[][]{
+			{"File", "Opened Files"},
+		});
+		assertResults("opt", new String[][]{
+			{"File", "Optimize Imports"},
+		});
+		assertResults("openx", new String[0][]);
+		assertResults("zz", new String[0][]);
+	}
+
+	@Test
+	public void queryWordsAreIntersected() {
+		assertResults("open rec", new String[][]{
+			{"File", "Recent", "Open Recent..."},
+		});
+		// words of the groups count as well
+		assertResults("recent cl", new String[][]{
+			{"File", "Recent", "Clear"},
+		});
+		assertResults("file files", new String[][]{
+			{"File", "Opened Files"},
+		});
+		assertResults("close open", new String[0][]);
+	}
+
+	@Test
+	public void queryIsCaseInsensitiveAndSplitOnPunctuation() {
+		assertResults("OPEN...REC", new String[][]{
+			{"File", "Recent", "Open Recent..."},
+		});
+		assertResults("", new String[0][]);
+		assertResults(" ... ", new String[0][]);
+	}
+
+	@Test
+	public void resultsAreInMenuOrder() {
+		assertResults("z", new String[][]{
+			{"File", "Zebra"},
+			{"File", "Apple Zoo"},
+		});
+		List<String[]> results = actionHelper.searchActions("item", MAX_RESULTS);
+		for (int i = 0; i < results.size(); i++) {
+			assertArrayEquals(new String[]{"Items", "Item " + i}, results.get(i));
+		}
+	}
+
+	@Test
+	public void resultsAreCapped() {
+		assertEquals(MAX_RESULTS, actionHelper.searchActions("item", MAX_RESULTS).size());
+		assertEquals(ITEM_COUNT, actionHelper.searchActions("item", ITEM_COUNT + 1).size());
+		assertEquals(1, actionHelper.searchActions("item", 1).size());
+		// "1" prefixes the numbers of 61 items: 1, 10 to 19 and 100 to 149
+		assertEquals(61, actionHelper.searchActions("item 1", ITEM_COUNT).size());
+	}
+
+	private void assertResults(String query, String[][] expectedPaths) {
+		List<String[]> results = actionHelper.searchActions(query, MAX_RESULTS);
+		assertEquals(query, Arrays.deepToString(expectedPaths), Arrays.deepToString(results.toArray()));
+	}
+
+	private static DefaultActionGroup createGroup(String text, String... actionTexts) {
+		DefaultActionGroup group = new DefaultActionGroup(text, true);
+		for (String actionText : actionTexts) {
+			group.add(new TestAction(actionText));
+		}
+		return group;
+	}
+
+	private static class TestAction extends AnAction {
+		private TestAction(String text) {
+			super(text);
+		}
+
+		public void actionPerformed(AnActionEvent e) {
+		}
+	}
+}
@@ -0,0 +1,122 @@
+/*
+MouseGestures - pure Java library for recognition and processing mouse gestures.
+Copyright (C) 2003-2007 Smardec
+
+This library is free software; you can redistribute it and/or
+modify it under the terms of the GNU Lesser General Public
+License as published by the Free Software Foundation; either
+version 2.1 of the License, or (at your option) any later version.
+
+This library is distributed in the hope that it will be useful,
+but WITHOUT ANY WARRANTY; without even the implied warranty of
+MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+Lesser General Public License for more details.
+
+You should have received a copy of the GNU Lesser General Public
+License along with this library; if not, write to the Free Software
+Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+*/
+
+package com.smardec.ideaplugin.ideamousegestures.settings;
+
+import com.smardec.mousegestures.GestureCodes;
+import com.smardec.mousegestures.Movements;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GestureMapTest {
+	private static final int MOVE_COUNT = 10;
+
+	@Test
+	public void expectedSizeFitsWithoutGrowing() {
+		GestureMap<String> gestureMap = new GestureMap<String>(100);
+		int capacity = gestureMap.capacity();
+		for (int i = 0; i < 100; i++) {
+			gestureMap.put(gesture(i), "value" + i);
+		}
+		assertEquals(100, gestureMap.size());
+		assertEquals(capacity, gestureMap.capacity());
+	}
+
+	@Test
+	public void growsAndKeepsValues() {
+		GestureMap<String> gestureMap = new GestureMap<String>(1);
+		int capacity = gestureMap.capacity();
+		// all gestures of up to three movements, far more than the expected size
+		int count = MOVE_COUNT + MOVE_COUNT * MOVE_COUNT + MOVE_COUNT * MOVE_COUNT * MOVE_COUNT;
+		for (int i = 0; i < count; i++) {
+			gestureMap.put(gesture(i), "value" + i);
+		}
+		assertEquals(count, gestureMap.size());
+		assertTrue("grown", gestureMap.capacity() > capacity);
+		assertTrue("at most half full", gestureMap.size() * 2 <= gestureMap.capacity());
+		for (int i = 0; i < count; i++) {
+			assertEquals("value" + i, gestureMap.get(gesture(i)));
+		}
+	}
+
+	@Test
+	public void collisionChainsAreWalked() {
+		GestureMap<String> gestureMap = new GestureMap<String>(8);
+		int mask = gestureMap.capacity() - 1;
+		// gestures all hashed to the slot of the first one, the last is left out of the map
+		long[] gestures = new long[5];
+		int found = 0;
+		for (int i = 0; found < gestures.length; i++) {
+			long gesture = gesture(i);
+			if (found == 0 || (GestureMap.hash(gesture) & mask) == (GestureMap.hash(gestures[0]) & mask)) {
+				gestures[found++] = gesture;
+			}
+		}
+		for (int i = 0; i < gestures.length - 1; i++) {
+			gestureMap.put(gestures[i], "value" + i);
+		}
+		for (int i = 0; i < gestures.length - 1; i++) {
+			assertEquals("value" + i, gestureMap.get(gestures[i]));
+		}
+		assertNull(gestureMap.get(gestures[gestures.length - 1]));
+	}
+
+	@Test
+	public void firstValueIsKept() {
+		GestureMap<String> gestureMap = new GestureMap<String>(4);
+		long gesture = gesture(5);
+		gestureMap.put(gesture, "first");
+		gestureMap.put(gesture, "second");
+		assertEquals("first", gestureMap.get(gesture));
+		assertEquals(1, gestureMap.size());
+	}
+
+	@Test
+	public void invalidGestureIsNeverBound() {
+		GestureMap<String> gestureMap = new GestureMap<String>(4);
+		// INVALID (-1) marks free slots
+		gestureMap.put(GestureCodes.INVALID, "invalid");
+		assertEquals(0, gestureMap.size());
+		assertNull(gestureMap.get(GestureCodes.INVALID));
+		gestureMap.put(gesture(1), "value");
+		assertNull(gestureMap.get(GestureCodes.INVALID));
+		assertEquals("value", gestureMap.get(gesture(1)));
+		assertNull(gestureMap.get(gesture(2)));
+	}
+
+	/**
+	 * Returns the gesture with the given number, counting gestures by length and then by movements.
+	 */
+	private static long gesture(int number) {
+		long gesture = GestureCodes.EMPTY;
+		int length = 1;
+		int count = MOVE_COUNT;
+		while (number >= count) {
+			number -= count;
+			length++;
+			count *= MOVE_COUNT;
+		}
+		for (int i = 0; i < length; i++) {
+			gesture = GestureCodes.append(gesture, Movements.LEFT + number % MOVE_COUNT);
+			number /= MOVE_COUNT;
+		}
+		return gesture;
+	}
+}